@@ -0,0 +1,25 @@
+package maze_escape;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+
+    /**
+     * Runs the JMH benchmarks of the maze with the allocation profiler switched on,
+     * such that every benchmark also reports its allocation rate and bytes allocated per operation
+     * All other JMH command line options are passed through, e.g.
+     *   java -jar target/benchmarks.jar SearchBenchmark -p size=1000 -p removalsPerRow=2
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,61 @@
+package maze_escape;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GenerationBenchmark {
+
+    /**
+     * Benchmarks the generation of mazes of width and height 'size'
+     * removeRandomWalls() opens removalsPerRow * size walls of a Prim maze, like HugePrimMazeEscapeMain does,
+     * starting from a fresh copy of the same Prim maze at every invocation.
+     * removalsPerRow is a parameter of a separate state, such that it only multiplies the runs of removeRandomWalls().
+     */
+    @Param({"100", "1000", "5000"})
+    public int size;
+
+    @Param({"20221206"})
+    public long seed;
+
+    private Maze primMaze;      // the Prim maze from which the walls are removed
+    private Maze maze;          // the maze to be generated by the next invocation
+
+    @Setup(Level.Trial)
+    public void generatePrimMaze() {
+        Maze.reSeedRandomizer(this.seed);
+        this.primMaze = new Maze(this.size, this.size);
+        this.primMaze.generateRandomizedPrim();
+        this.primMaze.configureInnerEntry();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareMaze() {
+        Maze.reSeedRandomizer(this.seed);
+        this.maze = new Maze(this.primMaze.getWalls().copy(), this.primMaze.getStartNode(), this.primMaze.getExitNode());
+    }
+
+    @Benchmark
+    public Maze generateRandomizedPrim() {
+        this.maze.generateRandomizedPrim();
+        return this.maze;
+    }
+
+    @State(Scope.Thread)
+    public static class WallRemoval {
+        @Param({"2", "20"})
+        public int removalsPerRow;
+    }
+
+    @Benchmark
+    public Maze removeRandomWalls(WallRemoval removal) {
+        this.maze.removeRandomWalls(removal.removalsPerRow * this.size);
+        return this.maze;
+    }
+}
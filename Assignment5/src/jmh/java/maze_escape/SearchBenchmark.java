@@ -0,0 +1,78 @@
+package maze_escape;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SearchBenchmark {
+
+    /**
+     * Benchmarks the neighbours and the path searches of a Prim maze of width and height 'size'
+     * with removalsPerRow * size walls removed, from its start to its exit, like HugePrimMazeEscapeMain does
+     */
+    private static final int NUM_SAMPLED_CELLS = 1024;
+
+    @Param({"100", "1000", "5000"})
+    public int size;
+
+    @Param({"20221206"})
+    public long seed;
+
+    @Param({"0", "2", "20"})
+    public int removalsPerRow;
+
+    private Maze maze;
+    private int[] sampledCells;     // random cells of the maze to retrieve the neighbours of
+
+    @Setup(Level.Trial)
+    public void generateMaze() {
+        Maze.reSeedRandomizer(this.seed);
+        this.maze = new Maze(this.size, this.size);
+        this.maze.generateRandomizedPrim();
+        this.maze.configureInnerEntry();
+        this.maze.removeRandomWalls(this.removalsPerRow * this.size);
+
+        Random random = new Random(this.seed);
+        this.sampledCells = new int[NUM_SAMPLED_CELLS];
+        for (int i = 0; i < NUM_SAMPLED_CELLS; i++) {
+            this.sampledCells[i] = random.nextInt(this.maze.getNumberOfCells());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_SAMPLED_CELLS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void getNeighbours(Blackhole blackhole) {
+        for (int cell : this.sampledCells) {
+            blackhole.consume(this.maze.getNeighbours(cell));
+        }
+    }
+
+    @Benchmark
+    public Maze.GPath depthFirstSearch() {
+        return this.maze.depthFirstSearch(this.maze.getStartNode(), this.maze.getExitNode());
+    }
+
+    @Benchmark
+    public Maze.GPath breadthFirstSearch() {
+        return this.maze.breadthFirstSearch(this.maze.getStartNode(), this.maze.getExitNode());
+    }
+
+    @Benchmark
+    public Maze.GPath dijkstraShortestPath() {
+        return this.maze.dijkstraShortestPath(this.maze.getStartNode(), this.maze.getExitNode(), this.maze::manhattanTime);
+    }
+
+    @Benchmark
+    public Maze.GPath aStarShortestPath() {
+        return this.maze.aStarShortestPath(this.maze.getStartNode(), this.maze.getExitNode(), this.maze::manhattanTime);
+    }
+}
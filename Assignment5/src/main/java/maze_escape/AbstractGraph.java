@@ -1,7 +1,7 @@
 package maze_escape;
 
 import java.util.*;
-import java.util.function.BiFunction;
+import java.util.function.ToDoubleBiFunction;
 import java.util.stream.Collectors;
 
 public abstract class AbstractGraph<V> {
@@ -13,9 +13,48 @@ public abstract class AbstractGraph<V> {
      * this abstraction can be used for both directed and undirected graphs
      **/
 
+    // optional instrumentation of the searches, see setSearchStats()
+    private SearchStats searchStats;
+
     public AbstractGraph() {
     }
 
+    /**
+     * registers stats that record the counters and timings of every following search on this graph
+     * depthFirstSearch, breadthFirstSearch, their bidirectional variants and dijkstra/A* are instrumented
+     * @param searchStats   the stats to record into, or null to switch the instrumentation off
+     */
+    public void setSearchStats(SearchStats searchStats) {
+        this.searchStats = searchStats;
+    }
+
+    public SearchStats getSearchStats() {
+        return this.searchStats;
+    }
+
+    // retrieves the neighbours of a vertex for a search, counting the call if the search is instrumented
+    private Set<V> neighboursOf(V vertex, SearchStats stats) {
+        if (stats != null) stats.neighboursCalled();
+        return this.getNeighbours(vertex);
+    }
+
+    // retrieves the predecessors of a vertex for a backward search, counting the call like neighboursOf()
+    private Set<V> predecessorsOf(V vertex, SearchStats stats) {
+        if (stats != null) stats.neighboursCalled();
+        return this.getPredecessors(vertex);
+    }
+
+    // finishes the instrumentation of a search, if any, and passes on its resulting path
+    private GPath finishSearch(SearchStats stats, GPath path) {
+        if (stats == null) return path;
+        if (path != null && path.vertices != null) {
+            stats.finish(true, path.vertices.size(), path.totalWeight);
+        } else {
+            stats.finish(false, 0, 0.0);
+        }
+        return path;
+    }
+
     /**
      * retrieves all neighbours of the given fromVertex
      * if the graph is directed, the implementation of this method shall follow the outgoing edges of fromVertex
@@ -25,6 +64,19 @@ public abstract class AbstractGraph<V> {
      */
     public abstract Set<V> getNeighbours(V fromVertex);
 
+    /**
+     * retrieves all vertices that have an edge towards the given toVertex
+     * the bidirectional searches follow these incoming edges from the target backwards
+     * the default implementation returns getNeighbours(toVertex), which only holds for undirected graphs
+     * a directed graph shall override this method to follow the incoming edges of toVertex
+     *
+     * @param toVertex
+     * @return
+     */
+    public Set<V> getPredecessors(V toVertex) {
+        return this.getNeighbours(toVertex);
+    }
+
     /**
      * retrieves all vertices that can be reached directly or indirectly from the given firstVertex
      * if the graph is directed, only outgoing edges shall be traversed
@@ -40,17 +92,40 @@ public abstract class AbstractGraph<V> {
             return null;
         }
 
-        return getAllVertices(firstVertex, new LinkedHashSet<>()); // call recursive method with a new set
+        return getAllVertices(firstVertex, new LinkedHashSet<>()); // call the traversal with a new set
 
     }
 
+    /**
+     * adds all vertices that can be reached from current into the given visited set
+     * vertices are added in pre-order of a depth-first traversal, like a recursive traversal would do,
+     * but an explicit stack of neighbour iterators is used instead of the call stack,
+     * such that graphs of any size can be traversed.
+     * The visited set may be of any Set implementation, e.g. an IntBitSet for integer vertices
+     *
+     * @param current
+     * @param visited
+     * @return the visited set
+     */
     public Set<V> getAllVertices(V current, Set<V> visited) {
 
-        if (visited.contains(current)) return visited;
-        visited.add(current);
+        if (!visited.add(current)) return visited;
 
-        for (V neighbor : this.getNeighbours(current)) {
-            getAllVertices(neighbor, visited);
+        // the stack holds the remaining neighbours to be traversed of all vertices on the current path
+        Deque<Iterator<V>> stack = new ArrayDeque<>();
+        stack.push(this.getNeighbours(current).iterator());
+
+        while (!stack.isEmpty()) {
+            Iterator<V> neighbours = stack.peek();
+            if (!neighbours.hasNext()) {
+                stack.pop();        // all neighbours have been traversed, backtrack
+                continue;
+            }
+            V neighbour = neighbours.next();
+            if (visited.add(neighbour)) {
+                // descend into the neighbour, before continuing with the next neighbour of the current vertex
+                stack.push(this.getNeighbours(neighbour).iterator());
+            }
         }
 
         return visited;
@@ -85,22 +160,39 @@ public abstract class AbstractGraph<V> {
         return stringBuilder.toString();
     }
 
+    /**
+     * adds all vertices that can be reached from current with their neighbours into the visited map
+     * vertices are added in pre-order of a depth-first traversal, using an explicit stack instead of recursion
+     *
+     * @param current
+     * @param visited
+     * @return the visited map
+     */
     public Map<V, Set<V>> formatAdjacencyList(V current, Map<V, Set<V>> visited) {
 
+        // Add the current vertex with its neighbours
+        Set<V> currentNeighbours = this.getNeighbours(current);
+        visited.put(current, currentNeighbours);
 
-        for (V neighbour : this.getNeighbours(current)) {
-            // Add the current vertex with its neighbours if the neighbour doesn't exist yet
-            if (!visited.containsKey(neighbour)) {
-                visited.put(current, this.getNeighbours(current));
+        // the stack holds the remaining neighbours to be traversed of all vertices on the current path
+        Deque<Iterator<V>> stack = new ArrayDeque<>();
+        stack.push(currentNeighbours.iterator());
 
-                // recursively call the method again with the neighbour as its new current point
-                formatAdjacencyList(neighbour, visited);
+        while (!stack.isEmpty()) {
+            Iterator<V> neighbours = stack.peek();
+            if (!neighbours.hasNext()) {
+                stack.pop();        // all neighbours have been traversed, backtrack
+                continue;
+            }
+            V neighbour = neighbours.next();
+            // Add the neighbour with its neighbours if it doesn't exist yet, and continue from there
+            if (!visited.containsKey(neighbour)) {
+                Set<V> neighbourNeighbours = this.getNeighbours(neighbour);
+                visited.put(neighbour, neighbourNeighbours);
+                stack.push(neighbourNeighbours.iterator());
             }
         }
 
-        // Last neighbour gets added to the map because all previous neighbours already exist
-        visited.put(current, this.getNeighbours(current));
-
         return visited;
     }
 
@@ -109,9 +201,10 @@ public abstract class AbstractGraph<V> {
      * represents a directed path of connected vertices in the graph
      */
     public class GPath {
-        private Deque<V> vertices = new LinkedList<>();
-        private double totalWeight = 0.0;
-        private Set<V> visited = new HashSet<>();
+        // package-private, such that specialised search implementations in this package can populate their results
+        Deque<V> vertices = new LinkedList<>();
+        double totalWeight = 0.0;
+        Set<V> visited = new HashSet<>();
 
         /**
          * representation invariants:
@@ -152,12 +245,12 @@ public abstract class AbstractGraph<V> {
          *
          * @param weightMapper
          */
-        public void reCalculateTotalWeight(BiFunction<V, V, Double> weightMapper) {
+        public void reCalculateTotalWeight(ToDoubleBiFunction<V, V> weightMapper) {
             this.totalWeight = 0.0;
             V previous = null;
             for (V v : this.vertices) {
                 // the first vertex of the iterator has no predecessor and hence no weight contribution
-                if (previous != null) this.totalWeight += weightMapper.apply(previous, v);
+                if (previous != null) this.totalWeight += weightMapper.applyAsDouble(previous, v);
                 previous = v;
             }
         }
@@ -189,15 +282,27 @@ public abstract class AbstractGraph<V> {
 
         if (startVertex == null || targetVertex == null) return null;
 
+        SearchStats stats = this.searchStats;
+        if (stats != null) stats.start("depthFirstSearch");
         GPath gPath = depthFirstSearch(startVertex, targetVertex, new GPath());
 
         if (gPath.vertices == null) {
-            return null;
+            return this.finishSearch(stats, null);
         }
 
-        return gPath;
+        return this.finishSearch(stats, gPath);
     }
 
+    /**
+     * continues a depth-first search from current towards target, skipping all vertices in gPath.visited
+     * neighbours are visited in the same order as a recursive search would do,
+     * but an explicit stack is used instead of the call stack, such that graphs of any size can be searched.
+     *
+     * @param current
+     * @param target
+     * @param gPath
+     * @return gPath with the vertices from current to target, or with vertices == null if target was not found
+     */
     public GPath depthFirstSearch(V current, V target, GPath gPath) {
 
         if (gPath.visited.contains(current)) {
@@ -206,20 +311,45 @@ public abstract class AbstractGraph<V> {
         }
 
         gPath.visited.add(current);
+        SearchStats stats = this.searchStats;
+        if (stats != null) stats.nodeSettled();
+
+        // the vertices hold the current path of the search from current,
+        // and the stack holds the remaining neighbours to be tried of each vertex along that path
+        gPath.vertices = new LinkedList<>();
+        gPath.vertices.addLast(current);
 
         // If current has reached target: return path
-        if (current.equals(target)) {
-            gPath.vertices = new LinkedList<>();
-            gPath.vertices.addLast(current);
-            return gPath;
-        }
+        if (current.equals(target)) return gPath;
+
+        Deque<Iterator<V>> stack = new ArrayDeque<>();
+        stack.push(this.neighboursOf(current, stats).iterator());
+        if (stats != null) stats.heapPushed();
+
+        while (!stack.isEmpty()) {
+            Iterator<V> neighbours = stack.peek();
+            if (!neighbours.hasNext()) {
+                // all neighbours have been tried, backtrack
+                stack.pop();
+                gPath.vertices.removeLast();
+                if (stats != null) stats.heapPopped();
+                continue;
+            }
+
+            // Try the next neighbour if it has not been visited already
+            V neighbour = neighbours.next();
+            if (stats != null) stats.edgeRelaxed();
+            if (!gPath.visited.add(neighbour)) continue;
+            gPath.vertices.addLast(neighbour);
+
+            // If the neighbour has reached target: return path
+            if (neighbour.equals(target)) return gPath;
 
-        // Loop through all neighbours and add them if they don't exist already
-        for (V neighbour : this.getNeighbours(current)) {
-            gPath = depthFirstSearch(neighbour, target, gPath);
-            if (gPath.vertices != null) {
-                gPath.vertices.addFirst(current);
-                return gPath;
+            stack.push(this.neighboursOf(neighbour, stats).iterator());
+            if (stats != null) {
+                stats.nodeSettled();
+                stats.heapPushed();
+                stats.frontierSize(stack.size());
             }
         }
 
@@ -241,61 +371,170 @@ public abstract class AbstractGraph<V> {
 
         if (startVertex == null || targetVertex == null) return null;
 
+        SearchStats stats = this.searchStats;
+        if (stats != null) stats.start("breadthFirstSearch");
         GPath gPath = new GPath();
 
         gPath.visited.add(targetVertex);
         gPath.vertices.addLast(targetVertex);
-        if (startVertex.equals(targetVertex)) return gPath;
+        if (startVertex.equals(targetVertex)) return this.finishSearch(stats, gPath);
         Queue<V> fifoQueue = new LinkedList<>();
         Map<V, V> visitedFrom = new HashMap<>();
 
         fifoQueue.offer(startVertex);
         visitedFrom.put(startVertex, null);
+        if (stats != null) stats.heapPushed();
 
         V current = fifoQueue.poll();
         while (current != null) {
-            for (V neighbour : this.getNeighbours(current)) {
+            if (stats != null) {
+                stats.heapPopped();
+                stats.nodeSettled();
+            }
+            for (V neighbour : this.neighboursOf(current, stats)) {
+                if (stats != null) stats.edgeRelaxed();
                 if (neighbour.equals(targetVertex)) {
+                    if (stats != null) stats.startPhase("path");
                     while (current != null) {
                         gPath.vertices.addFirst(current);
                         current = visitedFrom.get(current);
                     }
                     gPath.visited = visitedFrom.keySet();
-                    return gPath;
+                    return this.finishSearch(stats, gPath);
                 } else if (!visitedFrom.containsKey(neighbour)) {
                     visitedFrom.put(neighbour, current);
                     fifoQueue.offer(neighbour);
+                    if (stats != null) {
+                        stats.heapPushed();
+                        stats.frontierSize(fifoQueue.size());
+                    }
                 }
             }
             current = fifoQueue.poll();
         }
 
-        return null;    // No path found from start to target
+        return this.finishSearch(stats, null);    // No path found from start to target
     }
 
 
+    /**
+     * Uses a bidirectional breadth-first search to find a path from the startVertex to targetVertex in the subgraph
+     * One search expands from the startVertex and another one from the targetVertex,
+     * every round the smaller frontier is expanded by one complete level, until both searches meet in the middle.
+     * The search from the targetVertex follows the incoming edges, as given by getPredecessors()
+     * All vertices that are being visited by both searches are registered in path.visited
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath bidirectionalBreadthFirstSearch(V startVertex, V targetVertex) {
+
+        if (startVertex == null || targetVertex == null) return null;
+
+        SearchStats stats = this.searchStats;
+        if (stats != null) stats.start("bidirectionalBreadthFirstSearch");
+        GPath gPath = new GPath();
+
+        gPath.visited.add(startVertex);
+        if (startVertex.equals(targetVertex)) {
+            gPath.vertices.add(startVertex);
+            return this.finishSearch(stats, gPath);
+        }
+
+        // both searches track the vertex from which they have visited each vertex
+        Queue<V> forwardQueue = new LinkedList<>();
+        Map<V, V> forwardVisitedFrom = new HashMap<>();
+        Queue<V> backwardQueue = new LinkedList<>();
+        Map<V, V> backwardVisitedFrom = new HashMap<>();
+
+        forwardQueue.offer(startVertex);
+        forwardVisitedFrom.put(startVertex, null);
+        backwardQueue.offer(targetVertex);
+        backwardVisitedFrom.put(targetVertex, null);
+        if (stats != null) stats.heapPushed(2);
+
+        V meetingVertex = null;
+        while (meetingVertex == null && !forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            if (forwardQueue.size() <= backwardQueue.size()) {
+                meetingVertex = this.expandLevel(forwardQueue, forwardVisitedFrom, backwardVisitedFrom, true, stats);
+            } else {
+                meetingVertex = this.expandLevel(backwardQueue, backwardVisitedFrom, forwardVisitedFrom, false, stats);
+            }
+            if (stats != null) stats.frontierSize(forwardQueue.size() + backwardQueue.size());
+        }
+
+        if (stats != null) stats.startPhase("path");
+        gPath.visited.addAll(forwardVisitedFrom.keySet());
+        gPath.visited.addAll(backwardVisitedFrom.keySet());
+        if (meetingVertex == null) return this.finishSearch(stats, null);    // No path found from start to target
+
+        // the first half of the path runs backwards from the meeting vertex to the start
+        V current = meetingVertex;
+        while (current != null) {
+            gPath.vertices.addFirst(current);
+            current = forwardVisitedFrom.get(current);
+        }
+        // the second half of the path runs forwards from the meeting vertex to the target
+        current = backwardVisitedFrom.get(meetingVertex);
+        while (current != null) {
+            gPath.vertices.addLast(current);
+            current = backwardVisitedFrom.get(current);
+        }
+        return this.finishSearch(stats, gPath);
+    }
+
+    /**
+     * expands all vertices of the current level in the queue of one side of a bidirectional breadth-first search
+     * @param queue             the queue of the side which is expanded
+     * @param visitedFrom       the visited vertices of the side which is expanded
+     * @param otherVisitedFrom  the visited vertices of the other side
+     * @param isForward         whether the side follows outgoing edges, or incoming edges from the target
+     * @param stats             the instrumentation of the search, or null
+     * @return  the first vertex that has been visited by both sides, or null if the sides have not met yet
+     */
+    private V expandLevel(Queue<V> queue, Map<V, V> visitedFrom, Map<V, V> otherVisitedFrom, boolean isForward,
+                          SearchStats stats) {
+        for (int levelSize = queue.size(); levelSize > 0; levelSize--) {
+            V current = queue.poll();
+            if (stats != null) {
+                stats.heapPopped();
+                stats.nodeSettled();
+            }
+            Set<V> neighbours = isForward ? this.neighboursOf(current, stats) : this.predecessorsOf(current, stats);
+            for (V neighbour : neighbours) {
+                if (stats != null) stats.edgeRelaxed();
+                if (visitedFrom.containsKey(neighbour)) continue;
+                visitedFrom.put(neighbour, current);
+                if (otherVisitedFrom.containsKey(neighbour)) return neighbour;
+                queue.offer(neighbour);
+                if (stats != null) stats.heapPushed();
+            }
+        }
+        return null;
+    }
+
     // helper class to build the spanning tree of visited vertices in dijkstra's shortest path algorithm
-    // your may change this class or delete it altogether follow a different approach in your implementation
-    private class MSTNode implements Comparable<MSTNode> {
+    // every node gets a sequential id, by which it is tracked in the indexed priority queue of the search
+    private class MSTNode {
+        protected final int id;            // the index of this node in the priority queue of the search
         protected V vertex;                // the graph vertex that is concerned with this MSTNode
         protected V parentVertex = null;     // the parent's node vertex that has an edge towards this node's vertex
         protected boolean marked = false;  // indicates DSP processing has been marked complete for this vertex
         protected double weightSumTo = Double.MAX_VALUE;   // sum of weights of current shortest path towards this node's vertex
 
-        private MSTNode(V vertex) {
+        private MSTNode(int id, V vertex) {
+            this.id = id;
             this.vertex = vertex;
         }
-
-        // comparable interface helps to find a node with the shortest current path, so far
-        @Override
-        public int compareTo(MSTNode otherMSTNode) {
-            return Double.compare(weightSumTo, otherMSTNode.weightSumTo);
-        }
     }
 
     /**
      * Calculates the edge-weighted shortest path from the startVertex to targetVertex in the subgraph
      * according to Dijkstra's algorithm of a minimum spanning tree
+     * The next nearest vertex is selected from an indexed priority queue,
+     * which supports decreasing the weightSumTo of vertices that are already queued.
      *
      * @param startVertex
      * @param targetVertex
@@ -305,10 +544,47 @@ public abstract class AbstractGraph<V> {
      * or null if target cannot be matched with a vertex in the sub-graph from startVertex
      */
     public GPath dijkstraShortestPath(V startVertex, V targetVertex,
-                                      BiFunction<V, V, Double> weightMapper) {
+                                      ToDoubleBiFunction<V, V> weightMapper) {
+        // Dijkstra is A* without any estimate of the remaining distance towards the target
+        return this.weightedShortestPath(startVertex, targetVertex, weightMapper, (vertex, target) -> 0.0,
+                "dijkstraShortestPath");
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from the startVertex to targetVertex in the subgraph
+     * according to the A* algorithm, which extends Dijkstra's algorithm with a heuristic estimate
+     * of the remaining weight from every vertex towards the targetVertex.
+     * Vertices are selected in order of weightSumTo + heuristic, such that the search is drawn towards the target
+     * and settles fewer vertices than Dijkstra's algorithm does.
+     * The heuristic shall be consistent: heuristic(v1,target) <= weight(v1,v2) + heuristic(v2,target)
+     * for every edge from v1 to v2, and heuristic(target,target) == 0.
+     * Then it never overestimates the remaining weight and the resulting path is a shortest path.
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @param weightMapper provides a function(v1,v2) by which the weight of an edge from v1 to v2
+     *                     can be retrieved or calculated, as a primitive double without boxing per relaxed edge
+     * @param heuristic    provides a function(v,target) which estimates the weight of the remaining path
+     *                     from v to the target
+     * @return the shortest path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath aStarShortestPath(V startVertex, V targetVertex,
+                                   ToDoubleBiFunction<V, V> weightMapper,
+                                   ToDoubleBiFunction<V, V> heuristic) {
+        return this.weightedShortestPath(startVertex, targetVertex, weightMapper, heuristic, "aStarShortestPath");
+    }
+
+    // the A* search behind both dijkstraShortestPath and aStarShortestPath, which reports to the stats by searchName
+    private GPath weightedShortestPath(V startVertex, V targetVertex,
+                                       ToDoubleBiFunction<V, V> weightMapper, ToDoubleBiFunction<V, V> heuristic,
+                                       String searchName) {
 
         if (startVertex == null || targetVertex == null) return null;
 
+        SearchStats stats = this.searchStats;
+        if (stats != null) stats.start(searchName);
+
         // initialise the result path of the search
         GPath path = new GPath();
         path.visited.add(startVertex);
@@ -316,27 +592,42 @@ public abstract class AbstractGraph<V> {
         // easy target
         if (startVertex.equals(targetVertex)) {
             path.vertices.add(startVertex);
-            return path;
+            return this.finishSearch(stats, path);
         }
 
         // a minimum spanning tree which tracks for every visited vertex:
         //   a) its (parent) predecessor in the currently shortest path towards this visited vertex
         //   b) the total weight of the currently shortest path towards this visited vertex
         //   c) a mark, indicating whether the current path towards this visited vertex is the final shortest.
-        // (you may choose a different approach of tracking the MST of the algorithm, if you wish)
         Map<V, MSTNode> minimumSpanningTree = new HashMap<>();
+        // all nodes of the tree by their id, to map the ids from the priority queue back onto the nodes
+        List<MSTNode> mstNodes = new ArrayList<>();
+        // the unmarked nodes ordered by their current weightSumTo plus the estimate of their remaining weight
+        IndexedMinHeap nearestNodes = new IndexedMinHeap();
 
         // initialise the minimum spanning tree with the startVertex
-        MSTNode nearestMSTNode = new MSTNode(startVertex);
-        nearestMSTNode.weightSumTo = 0.0;
-        minimumSpanningTree.put(startVertex, nearestMSTNode);
-
-        while (nearestMSTNode != null) {
-
+        MSTNode startMSTNode = new MSTNode(mstNodes.size(), startVertex);
+        startMSTNode.weightSumTo = 0.0;
+        minimumSpanningTree.put(startVertex, startMSTNode);
+        mstNodes.add(startMSTNode);
+        nearestNodes.insert(startMSTNode.id, heuristic.applyAsDouble(startVertex, targetVertex));
+        if (stats != null) stats.heapPushed();
+
+        while (!nearestNodes.isEmpty()) {
+
+            // the most promising unmarked node has found its final shortest path
+            if (stats != null) stats.frontierSize(nearestNodes.size());
+            MSTNode nearestMSTNode = mstNodes.get(nearestNodes.pollMin());
+            nearestMSTNode.marked = true;
             path.visited.add(nearestMSTNode.vertex); // Register visited vertex
+            if (stats != null) {
+                stats.heapPopped();
+                stats.nodeSettled();
+            }
 
             // If vertex is at the target vertex build the path
             if (nearestMSTNode.vertex.equals(targetVertex)) {
+                if (stats != null) stats.startPhase("path");
                 V parentVertex = nearestMSTNode.parentVertex;
 
                 // Add all the parents until you reach the beginning
@@ -347,36 +638,170 @@ public abstract class AbstractGraph<V> {
 
                 path.vertices.add(targetVertex);
                 path.totalWeight = nearestMSTNode.weightSumTo;
-                return path;
+                return this.finishSearch(stats, path);
             }
 
-            // Calculate the weight of all neighbour vertices
-            for (V neighbour : getNeighbours(nearestMSTNode.vertex)) {
+            // Relax the edges towards all neighbour vertices that are not marked yet
+            for (V neighbour : this.neighboursOf(nearestMSTNode.vertex, stats)) {
+                if (stats != null) stats.edgeRelaxed();
 
-                if (!path.visited.contains(neighbour)) {
-                    MSTNode neighbourNode;
+                MSTNode neighbourNode = minimumSpanningTree.get(neighbour);
+                if (neighbourNode == null) {
+                    neighbourNode = new MSTNode(mstNodes.size(), neighbour);
+                    minimumSpanningTree.put(neighbour, neighbourNode);
+                    mstNodes.add(neighbourNode);
+                } else if (neighbourNode.marked) {
+                    continue;
+                }
 
-                    if (!minimumSpanningTree.containsKey(neighbour)) {
-                        neighbourNode = new MSTNode(neighbour);
-                        minimumSpanningTree.put(neighbour, neighbourNode);
-                    } else {
-                        neighbourNode = minimumSpanningTree.get(neighbour);
-                    }
-                    double sum = weightMapper.apply(nearestMSTNode.vertex, neighbour) + nearestMSTNode.weightSumTo;
-                    // Store the weight if the new sum is smaller
+                double sum = weightMapper.applyAsDouble(nearestMSTNode.vertex, neighbour) + nearestMSTNode.weightSumTo;
+                // Store the weight if the new sum is smaller, and (re)position the node in the queue
+                if (sum < neighbourNode.weightSumTo) {
+                    neighbourNode.weightSumTo = sum;
+                    neighbourNode.parentVertex = nearestMSTNode.vertex;
+                    nearestNodes.insertOrDecrease(neighbourNode.id, sum + heuristic.applyAsDouble(neighbour, targetVertex));
+                    if (stats != null) stats.heapPushed();
+                }
+            }
+        }
+        return this.finishSearch(stats, null);
+    }
+
+    // one side of a bidirectional search with dijkstra's algorithm,
+    // tracking its own minimum spanning tree and priority queue of unmarked nodes
+    private class DijkstraSide {
+        private final Map<V, MSTNode> minimumSpanningTree = new HashMap<>();
+        private final List<MSTNode> mstNodes = new ArrayList<>();
+        private final IndexedMinHeap nearestNodes = new IndexedMinHeap();
+
+        private DijkstraSide(V rootVertex) {
+            MSTNode rootNode = this.reach(rootVertex);
+            rootNode.weightSumTo = 0.0;
+            this.nearestNodes.insert(rootNode.id, 0.0);
+        }
+
+        // retrieves the node of the given vertex, creating it if the vertex is reached for the first time
+        private MSTNode reach(V vertex) {
+            MSTNode node = this.minimumSpanningTree.get(vertex);
+            if (node == null) {
+                node = new MSTNode(this.mstNodes.size(), vertex);
+                this.minimumSpanningTree.put(vertex, node);
+                this.mstNodes.add(node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from the startVertex to targetVertex in the subgraph
+     * according to a bidirectional variant of Dijkstra's algorithm
+     * One search settles vertices from the startVertex and another one from the targetVertex,
+     * always continuing the side with the nearest unmarked vertex.
+     * Every relaxed edge towards a vertex which has been reached by the other side, yields a candidate path.
+     * The search stops when the sum of the nearest unmarked weights of both sides cannot improve the best candidate.
+     * The search from the targetVertex follows the incoming edges, as given by getPredecessors(),
+     * where weightMapper(v1,v2) gives the weight of the edge in the direction from v1 to v2
+     * All vertices that are being marked by both searches are registered in path.visited
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @param weightMapper provides a function(v1,v2) by which the weight of an edge from v1 to v2
+     *                     can be retrieved or calculated
+     * @return the shortest path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath bidirectionalDijkstraShortestPath(V startVertex, V targetVertex,
+                                                   ToDoubleBiFunction<V, V> weightMapper) {
+
+        if (startVertex == null || targetVertex == null) return null;
+
+        SearchStats stats = this.searchStats;
+        if (stats != null) stats.start("bidirectionalDijkstraShortestPath");
+
+        // initialise the result path of the search
+        GPath path = new GPath();
+        path.visited.add(startVertex);
+
+        // easy target
+        if (startVertex.equals(targetVertex)) {
+            path.vertices.add(startVertex);
+            return this.finishSearch(stats, path);
+        }
+
+        DijkstraSide forward = new DijkstraSide(startVertex);
+        DijkstraSide backward = new DijkstraSide(targetVertex);
+        if (stats != null) stats.heapPushed(2);
+
+        // the best path found so far passes the edge from forwardMeeting towards backwardMeeting
+        double bestWeightSum = Double.MAX_VALUE;
+        V forwardMeeting = null;
+        V backwardMeeting = null;
+
+        while (!forward.nearestNodes.isEmpty() && !backward.nearestNodes.isEmpty() &&
+                forward.nearestNodes.peekMinKey() + backward.nearestNodes.peekMinKey() < bestWeightSum) {
+
+            // continue the side with the nearest unmarked node
+            boolean isForward = forward.nearestNodes.peekMinKey() <= backward.nearestNodes.peekMinKey();
+            DijkstraSide side = isForward ? forward : backward;
+            DijkstraSide otherSide = isForward ? backward : forward;
+
+            if (stats != null) stats.frontierSize(forward.nearestNodes.size() + backward.nearestNodes.size());
+            MSTNode nearestMSTNode = side.mstNodes.get(side.nearestNodes.pollMin());
+            nearestMSTNode.marked = true;
+            path.visited.add(nearestMSTNode.vertex); // Register visited vertex
+            if (stats != null) {
+                stats.heapPopped();
+                stats.nodeSettled();
+            }
+
+            Set<V> neighbours = isForward ? this.neighboursOf(nearestMSTNode.vertex, stats)
+                    : this.predecessorsOf(nearestMSTNode.vertex, stats);
+            for (V neighbour : neighbours) {
+                if (stats != null) stats.edgeRelaxed();
+                // the backward side follows the incoming edges in reverse direction
+                double weight = isForward ? weightMapper.applyAsDouble(nearestMSTNode.vertex, neighbour)
+                        : weightMapper.applyAsDouble(neighbour, nearestMSTNode.vertex);
+
+                MSTNode neighbourNode = side.reach(neighbour);
+                if (!neighbourNode.marked) {
+                    double sum = nearestMSTNode.weightSumTo + weight;
                     if (sum < neighbourNode.weightSumTo) {
                         neighbourNode.weightSumTo = sum;
                         neighbourNode.parentVertex = nearestMSTNode.vertex;
+                        side.nearestNodes.insertOrDecrease(neighbourNode.id, sum);
+                        if (stats != null) stats.heapPushed();
+                    }
+                }
+
+                // check for a better path via this edge towards the other side
+                MSTNode otherNode = otherSide.minimumSpanningTree.get(neighbour);
+                if (otherNode != null) {
+                    double candidate = nearestMSTNode.weightSumTo + weight + otherNode.weightSumTo;
+                    if (candidate < bestWeightSum) {
+                        bestWeightSum = candidate;
+                        forwardMeeting = isForward ? nearestMSTNode.vertex : neighbour;
+                        backwardMeeting = isForward ? neighbour : nearestMSTNode.vertex;
                     }
-                    minimumSpanningTree.put(neighbour, neighbourNode);
                 }
             }
-            nearestMSTNode.marked = true;
+        }
+
+        if (stats != null) stats.startPhase("path");
+        if (forwardMeeting == null) return this.finishSearch(stats, null);    // No path found from start to target
 
-            // Find the next nearest MSTNode that is not marked yet
-            nearestMSTNode = minimumSpanningTree.values().stream().filter(node -> !node.marked).min(MSTNode::compareTo)
-                    .orElse(null);
+        // the first half of the path runs backwards from the meeting edge to the start
+        V vertex = forwardMeeting;
+        while (vertex != null) {
+            path.vertices.addFirst(vertex);
+            vertex = forward.minimumSpanningTree.get(vertex).parentVertex;
         }
-        return null;
+        // the second half of the path runs forwards from the meeting edge to the target
+        vertex = backwardMeeting;
+        while (vertex != null) {
+            path.vertices.addLast(vertex);
+            vertex = backward.minimumSpanningTree.get(vertex).parentVertex;
+        }
+        path.totalWeight = bestWeightSum;
+        return this.finishSearch(stats, path);
     }
 }
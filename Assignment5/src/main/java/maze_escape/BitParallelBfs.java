@@ -0,0 +1,337 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class BitParallelBfs {
+
+    /**
+     * Bit-parallel breadth-first search (flood-fill) over the cell grid of a Maze
+     * Cells are represented by one bit each, in rows of 64-bit words like the walls of the WallBitboard.
+     * One level of the search expands 64 horizontally adjacent cells of the frontier at once,
+     * by shifting their word left and right and masking the result with the west walls,
+     * and by masking the word with the north walls of the same row or the row below.
+     * Only the words of the frontier that hold at least one cell are expanded, which are kept in a list per level
+     * such that the total work is bounded by the number of reached cells instead of levels x grid size.
+     *
+     * The level of every reached cell is recorded modulo 3 in two bit-planes.
+     * That suffices for path reconstruction, because the neighbours of a cell at level d are found
+     * at levels d-1, d or d+1 only: the predecessor is the neighbour at level (d-1) mod 3.
+     *
+     * Reachability alone does not need levels: floodFill() spreads reached cells along whole open runs of a word
+     * at once and is much faster than the level by level search, because grid frontiers hold few cells per word.
+     */
+    private static final int NONE = -1;
+
+    private final Maze maze;
+    private final WallBitboard walls;
+    private final int width;
+    private final int height;
+    private final int rowWords;         // number of words per row of cells
+    private final long lastWordMask;    // the bits of the last word of a row that represent cells
+
+    private final long[] reached;       // the cells that have been reached by the current search
+    private final long[] levelLow;      // bit 0 of the level modulo 3 of every reached cell
+    private final long[] levelHigh;     // bit 1 of the level modulo 3 of every reached cell
+    private long[] frontier;
+    private long[] nextFrontier;
+    private IntArrayList frontierWords = new IntArrayList();      // indices of the non-zero words of frontier
+    private IntArrayList nextFrontierWords = new IntArrayList();  // indices of the non-zero words of nextFrontier
+    private long numReached;
+
+    public BitParallelBfs(Maze maze) {
+        this.maze = maze;
+        this.walls = maze.getWalls();
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.rowWords = WallBitboard.numWords(this.width);
+        this.lastWordMask = WallBitboard.rowMask(this.rowWords - 1, this.width);
+        int numWords = Math.multiplyExact(this.height, this.rowWords);
+        this.reached = new long[numWords];
+        this.levelLow = new long[numWords];
+        this.levelHigh = new long[numWords];
+        this.frontier = new long[numWords];
+        this.nextFrontier = new long[numWords];
+    }
+
+    /**
+     * searches all cells that can be reached from the source cell, level by level,
+     * until the target cell has been reached or no further cells can be reached
+     * @param sourceCell
+     * @param targetCell    the cell to stop at, or -1 to flood-fill all reachable cells
+     * @return the number of steps from source to target, or -1 if the target cannot be reached
+     * or the number of the last level of a flood-fill
+     */
+    public int search(int sourceCell, int targetCell) {
+        Arrays.fill(this.reached, 0L);
+        Arrays.fill(this.levelLow, 0L);
+        Arrays.fill(this.levelHigh, 0L);
+        this.frontierWords.clear();
+        this.nextFrontierWords.clear();
+
+        int sourceWord = this.wordOf(sourceCell);
+        long sourceBit = 1L << (sourceCell % this.width);
+        this.reached[sourceWord] = sourceBit;
+        this.frontier[sourceWord] = sourceBit;
+        this.frontierWords.add(sourceWord);
+        this.numReached = 1;
+        if (sourceCell == targetCell) {
+            this.frontier[sourceWord] = 0L;
+            return 0;
+        }
+
+        int level = 0;
+        int targetWord = targetCell >= 0 ? this.wordOf(targetCell) : NONE;
+        long targetBit = targetCell >= 0 ? 1L << (targetCell % this.width) : 0L;
+        while (!this.frontierWords.isEmpty()) {
+            level++;
+            for (int i = 0; i < this.frontierWords.size(); i++) {
+                int index = this.frontierWords.get(i);
+                this.expand(index / this.rowWords, index % this.rowWords, this.frontier[index]);
+                this.frontier[index] = 0L;
+            }
+
+            // register the next frontier as reached at this level
+            boolean low = (level % 3 & 1) != 0;
+            boolean high = (level % 3 & 2) != 0;
+            for (int i = 0; i < this.nextFrontierWords.size(); i++) {
+                int index = this.nextFrontierWords.get(i);
+                long cells = this.nextFrontier[index];
+                this.reached[index] |= cells;
+                if (low) this.levelLow[index] |= cells;
+                if (high) this.levelHigh[index] |= cells;
+                this.numReached += Long.bitCount(cells);
+            }
+
+            // the next frontier becomes the current frontier
+            long[] expanded = this.frontier;
+            this.frontier = this.nextFrontier;
+            this.nextFrontier = expanded;
+            IntArrayList expandedWords = this.frontierWords;
+            this.frontierWords = this.nextFrontierWords;
+            this.nextFrontierWords = expandedWords;
+            this.nextFrontierWords.clear();
+
+            if (targetWord != NONE && (this.reached[targetWord] & targetBit) != 0) {
+                this.clearFrontier();
+                return level;
+            }
+        }
+        return targetCell >= 0 ? NONE : level - 1;
+    }
+
+    /**
+     * expands the cells in word w of row y of the frontier into the next frontier
+     * @param y
+     * @param w
+     * @param cells
+     */
+    private void expand(int y, int w, long cells) {
+        // west walls of the cells, and their east walls which are the west walls of the cells to their right
+        long westWalls = this.walls.westWord(y, w);
+        long eastWalls = (westWalls >>> 1) |
+                (w + 1 < this.walls.westStride ? this.walls.westWord(y, w + 1) << (WallBitboard.WORD_BITS - 1) : 0L);
+
+        long east = cells & ~eastWalls;
+        this.addToNextFrontier(y, w, east << 1);
+        if (w + 1 < this.rowWords) this.addToNextFrontier(y, w + 1, east >>> (WallBitboard.WORD_BITS - 1));
+
+        long west = cells & ~westWalls;
+        this.addToNextFrontier(y, w, west >>> 1);
+        if (w > 0) this.addToNextFrontier(y, w - 1, west << (WallBitboard.WORD_BITS - 1));
+
+        if (y > 0) this.addToNextFrontier(y - 1, w, cells & ~this.walls.northWord(y, w));
+        if (y + 1 < this.height) this.addToNextFrontier(y + 1, w, cells & ~this.walls.northWord(y + 1, w));
+    }
+
+    private void addToNextFrontier(int y, int w, long cells) {
+        if (cells == 0L) return;
+        int index = y * this.rowWords + w;
+        cells &= ~this.reached[index];
+        if (w == this.rowWords - 1) cells &= this.lastWordMask;
+        if (cells == 0L) return;
+        if (this.nextFrontier[index] == 0L) this.nextFrontierWords.add(index);
+        this.nextFrontier[index] |= cells;
+    }
+
+    private void clearFrontier() {
+        for (int i = 0; i < this.frontierWords.size(); i++) {
+            this.frontier[this.frontierWords.get(i)] = 0L;
+        }
+        this.frontierWords.clear();
+    }
+
+    /**
+     * marks all cells that can be reached from the source cell, without recording their levels
+     * Instead of one step per level, the reached cells of a word are spread along all open passages within the word
+     * at once, by a Kogge-Stone fill in either direction, and then passed on to the words around it.
+     * Words are processed from a work list for as long as they gain reached cells from their neighbours.
+     * @param sourceCell
+     * @return the number of reached cells
+     */
+    public long floodFill(int sourceCell) {
+        Arrays.fill(this.reached, 0L);
+        this.clearFrontier();
+
+        // the frontier words double as the work list, with nextFrontier marking the queued words
+        int sourceWord = this.wordOf(sourceCell);
+        this.reached[sourceWord] = 1L << (sourceCell % this.width);
+        this.queueWord(sourceWord);
+        while (!this.frontierWords.isEmpty()) {
+            int index = this.frontierWords.removeLast();
+            this.nextFrontier[index] = 0L;
+            int y = index / this.rowWords, w = index % this.rowWords;
+
+            long westWalls = this.walls.westWord(y, w);
+            long eastWalls = (westWalls >>> 1) |
+                    (w + 1 < this.walls.westStride ? this.walls.westWord(y, w + 1) << (WallBitboard.WORD_BITS - 1) : 0L);
+            long cells = fillWest(fillEast(this.reached[index], ~eastWalls << 1), ~eastWalls);
+            if (w == this.rowWords - 1) cells &= this.lastWordMask;
+            this.reached[index] = cells;
+
+            if (w + 1 < this.rowWords) this.floodInto(y, w + 1, (cells & ~eastWalls) >>> (WallBitboard.WORD_BITS - 1));
+            if (w > 0) this.floodInto(y, w - 1, (cells & ~westWalls) << (WallBitboard.WORD_BITS - 1));
+            if (y > 0) this.floodInto(y - 1, w, cells & ~this.walls.northWord(y, w));
+            if (y + 1 < this.height) this.floodInto(y + 1, w, cells & ~this.walls.northWord(y + 1, w));
+        }
+
+        this.numReached = 0;
+        for (long cells : this.reached) this.numReached += Long.bitCount(cells);
+        return this.numReached;
+    }
+
+    /**
+     * spreads cells towards higher bits, where bit x of open tells whether cell x can be entered from cell x-1
+     */
+    private static long fillEast(long cells, long open) {
+        cells |= open & (cells << 1);
+        open &= open << 1;
+        cells |= open & (cells << 2);
+        open &= open << 2;
+        cells |= open & (cells << 4);
+        open &= open << 4;
+        cells |= open & (cells << 8);
+        open &= open << 8;
+        cells |= open & (cells << 16);
+        open &= open << 16;
+        return cells | (open & (cells << 32));
+    }
+
+    /**
+     * spreads cells towards lower bits, where bit x of open tells whether cell x can be entered from cell x+1
+     */
+    private static long fillWest(long cells, long open) {
+        cells |= open & (cells >>> 1);
+        open &= open >>> 1;
+        cells |= open & (cells >>> 2);
+        open &= open >>> 2;
+        cells |= open & (cells >>> 4);
+        open &= open >>> 4;
+        cells |= open & (cells >>> 8);
+        open &= open >>> 8;
+        cells |= open & (cells >>> 16);
+        open &= open >>> 16;
+        return cells | (open & (cells >>> 32));
+    }
+
+    private void floodInto(int y, int w, long cells) {
+        if (cells == 0L) return;
+        int index = y * this.rowWords + w;
+        cells &= ~this.reached[index];
+        if (w == this.rowWords - 1) cells &= this.lastWordMask;
+        if (cells == 0L) return;
+        this.reached[index] |= cells;
+        this.queueWord(index);
+    }
+
+    private void queueWord(int index) {
+        if (this.nextFrontier[index] != 0L) return;
+        this.nextFrontier[index] = 1L;
+        this.frontierWords.add(index);
+    }
+
+    /**
+     * @param cell
+     * @return whether the cell has been reached by the latest search
+     */
+    public boolean isReached(int cell) {
+        return (this.reached[this.wordOf(cell)] & (1L << (cell % this.width))) != 0;
+    }
+
+    /**
+     * @return the number of cells that have been reached by the latest search
+     */
+    public long getNumReached() {
+        return this.numReached;
+    }
+
+    /**
+     * finds a path with the least number of steps from the source cell to the target cell
+     * @param sourceCell
+     * @param targetCell
+     * @return the path along all cells from source to target, with the number of steps as its total weight
+     * and all cells that have been reached by the search as visited
+     * or null if the target cannot be reached from the source
+     */
+    public IntPath shortestPath(int sourceCell, int targetCell) {
+        int distance = this.search(sourceCell, targetCell);
+        if (distance < 0) return null;
+
+        IntPath path = new IntPath();
+        path.totalWeight = distance;
+        path.visited = this.getReached();
+
+        // walk back from the target along neighbours that have been reached one level earlier
+        int cell = targetCell;
+        path.vertices.add(cell);
+        for (int level = distance; level > 0; level--) {
+            int x = cell % this.width, y = cell / this.width;
+            int previousLevel = (level - 1) % 3;
+            if (x > 0 && !this.maze.getWall(x, y, Maze.Direction.WEST) && this.isAtLevel(cell - 1, previousLevel)) {
+                cell = cell - 1;
+            } else if (x + 1 < this.width && !this.maze.getWall(x, y, Maze.Direction.EAST) &&
+                    this.isAtLevel(cell + 1, previousLevel)) {
+                cell = cell + 1;
+            } else if (y > 0 && !this.maze.getWall(x, y, Maze.Direction.NORTH) &&
+                    this.isAtLevel(cell - this.width, previousLevel)) {
+                cell = cell - this.width;
+            } else {
+                cell = cell + this.width;
+            }
+            path.vertices.add(cell);
+        }
+        path.vertices.reverse();
+        return path;
+    }
+
+    private boolean isAtLevel(int cell, int levelModulo3) {
+        int index = this.wordOf(cell);
+        long bit = 1L << (cell % this.width);
+        if ((this.reached[index] & bit) == 0) return false;
+        int level = ((this.levelLow[index] & bit) != 0 ? 1 : 0) | ((this.levelHigh[index] & bit) != 0 ? 2 : 0);
+        return level == levelModulo3;
+    }
+
+    /**
+     * @return the cells that have been reached by the latest search, by cell number
+     */
+    public BitSet getReached() {
+        BitSet cells = new BitSet(this.width * this.height);
+        for (int index = 0; index < this.reached.length; index++) {
+            long word = this.reached[index];
+            int firstCell = (index / this.rowWords) * this.width + (index % this.rowWords) * WallBitboard.WORD_BITS;
+            while (word != 0L) {
+                cells.set(firstCell + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return the index of the word that holds the bit of the given cell
+     */
+    private int wordOf(int cell) {
+        return (cell / this.width) * this.rowWords + (cell % this.width) / WallBitboard.WORD_BITS;
+    }
+}
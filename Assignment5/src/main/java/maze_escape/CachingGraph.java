@@ -0,0 +1,278 @@
+package maze_escape;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class CachingGraph<V> extends AbstractGraph<V> {
+
+    /**
+     * Decorator of an AbstractGraph that caches the neighbours of recently retrieved vertices
+     * All searches of AbstractGraph run on the decorator unchanged, but revisits of a vertex,
+     * e.g. by relaxations in dijkstra or by the return search after the escape search,
+     * are served from the cache instead of recomputing an expensive neighbourhood, like Maze.getNeighbours().
+     *
+     * The cache holds the neighbours of at most 'capacity' vertices, and evicts entries by one of the policies:
+     *  - LRU: evicts the least recently used vertex, tracked in a LinkedHashMap in access order
+     *  - CLOCK: approximates LRU by a reference bit per slot, which is set on every hit
+     *    and cleared by the clock hand that sweeps the slots in search of a victim.
+     *    Hits do not reorder any links, which makes them cheaper than LRU hits.
+     *
+     * Cached neighbours become stale when the decorated graph changes. invalidate() and invalidateAll()
+     * drop stale entries, which is up to the owner of the graph. A decorated Maze can flush the cache
+     * on every wall change by maze.addWallChangeListener(Maze.WallChangeListener.onAnyChange(cache::invalidateAll)).
+     * That drops all entries on each single wall change, because a passage along pass-through cells
+     * may connect vertices far away from the changed wall.
+     * The cache is not thread-safe.
+     */
+    public enum EvictionPolicy {
+        LRU,
+        CLOCK
+    }
+
+    private final AbstractGraph<V> graph;
+    private final NeighbourCache<V> cache;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param graph     the graph whose neighbours are cached
+     * @param capacity  the maximum number of vertices whose neighbours are held in the cache
+     * @param policy
+     */
+    public CachingGraph(AbstractGraph<V> graph, int capacity, EvictionPolicy policy) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        this.graph = graph;
+        this.cache = policy == EvictionPolicy.LRU ? new LruCache<>(capacity) : new ClockCache<>(capacity);
+    }
+
+    /**
+     * retrieves the neighbours of the given fromVertex from the cache,
+     * or from the decorated graph if they have not been cached yet
+     * @param fromVertex
+     * @return an unmodifiable set of the neighbours
+     */
+    @Override
+    public Set<V> getNeighbours(V fromVertex) {
+        Set<V> neighbours = this.cache.get(fromVertex);
+        if (neighbours != null) {
+            this.hits++;
+            return neighbours;
+        }
+        this.misses++;
+        neighbours = Collections.unmodifiableSet(this.graph.getNeighbours(fromVertex));
+        this.cache.put(fromVertex, neighbours);
+        return neighbours;
+    }
+
+    /**
+     * retrieves the predecessors from the decorated graph, without caching
+     * only the backward side of the bidirectional searches asks for them
+     * @param toVertex
+     * @return
+     */
+    @Override
+    public Set<V> getPredecessors(V toVertex) {
+        return this.graph.getPredecessors(toVertex);
+    }
+
+    /**
+     * drops the cached neighbours of a vertex, e.g. after an edge from that vertex has changed
+     * in an undirected graph, both ends of a changed edge shall be invalidated
+     * @param vertex
+     */
+    public void invalidate(V vertex) {
+        this.cache.remove(vertex);
+    }
+
+    /**
+     * drops all cached neighbours
+     */
+    public void invalidateAll() {
+        this.cache.clear();
+    }
+
+    public AbstractGraph<V> getGraph() {
+        return this.graph;
+    }
+
+    public int getCapacity() {
+        return this.cache.capacity();
+    }
+
+    /**
+     * @return the number of vertices whose neighbours are currently cached
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return the number of entries that have been evicted to make room for others, excluding invalidations
+     */
+    public long getEvictions() {
+        return this.cache.evictions();
+    }
+
+    // the storage of the cached neighbours, bounded by the eviction policy
+    private interface NeighbourCache<V> {
+        Set<V> get(V vertex);
+        void put(V vertex, Set<V> neighbours);
+        void remove(V vertex);
+        void clear();
+        int size();
+        int capacity();
+        long evictions();
+    }
+
+    private static class LruCache<V> implements NeighbourCache<V> {
+        private final int capacity;
+        private final LinkedHashMap<V, Set<V>> entries;
+        private long evictions;
+
+        private LruCache(int capacity) {
+            this.capacity = capacity;
+            // access order moves every retrieved entry to the tail, such that the eldest entry is the least recent
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<V, Set<V>> eldest) {
+                    if (this.size() <= LruCache.this.capacity) return false;
+                    LruCache.this.evictions++;
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public Set<V> get(V vertex) {
+            return this.entries.get(vertex);
+        }
+
+        @Override
+        public void put(V vertex, Set<V> neighbours) {
+            this.entries.put(vertex, neighbours);
+        }
+
+        @Override
+        public void remove(V vertex) {
+            this.entries.remove(vertex);
+        }
+
+        @Override
+        public void clear() {
+            this.entries.clear();
+        }
+
+        @Override
+        public int size() {
+            return this.entries.size();
+        }
+
+        @Override
+        public int capacity() {
+            return this.capacity;
+        }
+
+        @Override
+        public long evictions() {
+            return this.evictions;
+        }
+    }
+
+    private static class ClockCache<V> implements NeighbourCache<V> {
+        private final Object[] vertices;        // vertices[slot] holds the vertex that occupies the slot, or null
+        private final Object[] neighbours;      // neighbours[slot] holds the cached neighbours of that vertex
+        private final boolean[] referenced;     // whether the slot has been hit since the hand passed it
+        private final Map<V, Integer> slots = new HashMap<>();
+        private final IntArrayList freeSlots = new IntArrayList();
+        private int hand = 0;
+        private long evictions;
+
+        private ClockCache(int capacity) {
+            this.vertices = new Object[capacity];
+            this.neighbours = new Object[capacity];
+            this.referenced = new boolean[capacity];
+            for (int slot = capacity - 1; slot >= 0; slot--) this.freeSlots.add(slot);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<V> get(V vertex) {
+            Integer slot = this.slots.get(vertex);
+            if (slot == null) return null;
+            this.referenced[slot] = true;
+            return (Set<V>) this.neighbours[slot];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void put(V vertex, Set<V> neighbours) {
+            Integer slot = this.slots.get(vertex);
+            if (slot == null) {
+                if (!this.freeSlots.isEmpty()) {
+                    slot = this.freeSlots.removeLast();
+                } else {
+                    // advance the hand to a victim that has not been referenced since the hand passed it last
+                    while (this.referenced[this.hand]) {
+                        this.referenced[this.hand] = false;
+                        this.hand = (this.hand + 1) % this.vertices.length;
+                    }
+                    slot = this.hand;
+                    this.hand = (this.hand + 1) % this.vertices.length;
+                    this.slots.remove((V) this.vertices[slot]);
+                    this.evictions++;
+                }
+                this.vertices[slot] = vertex;
+                this.slots.put(vertex, slot);
+            }
+            this.neighbours[slot] = neighbours;
+            this.referenced[slot] = false;
+        }
+
+        @Override
+        public void remove(V vertex) {
+            Integer slot = this.slots.remove(vertex);
+            if (slot == null) return;
+            this.vertices[slot] = null;
+            this.neighbours[slot] = null;
+            this.referenced[slot] = false;
+            this.freeSlots.add(slot);
+        }
+
+        @Override
+        public void clear() {
+            for (int slot : this.slots.values()) {
+                this.vertices[slot] = null;
+                this.neighbours[slot] = null;
+                this.referenced[slot] = false;
+                this.freeSlots.add(slot);
+            }
+            this.slots.clear();
+        }
+
+        @Override
+        public int size() {
+            return this.slots.size();
+        }
+
+        @Override
+        public int capacity() {
+            return this.vertices.length;
+        }
+
+        @Override
+        public long evictions() {
+            return this.evictions;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ClusterHierarchy extends AbstractGraph<Integer> implements Maze.WallChangeListener {
+
+    /**
+     * Hierarchical abstraction of the cell grid of a Maze for hierarchical path-finding (HPA*)
+     * see Botea, Müller and Schaeffer, "Near Optimal Hierarchical Path-Finding", Journal of Game Development 1 (2004)
+     *
+     * The grid is split into square clusters of clusterSize x clusterSize cells.
+     * Every cell at the border of a cluster with an open passage into a neighbouring cluster is an entrance.
+     * The entrances are the vertices of this abstract graph:
+     *  - entrances of the same cluster are connected by the length of the shortest path between them
+     *    within the cluster, which is precomputed per cluster
+     *  - entrances on both sides of a passage between clusters are connected by a single step
+     * A query temporarily connects its start and target cells to the entrances of their clusters,
+     * searches the small abstract graph by A* and then refines only the route inside the clusters along the path.
+     * Because every open passage between clusters is an entrance, the refined path is a shortest path of the grid.
+     *
+     * Clusters are built lazily when a query first touches them, and they are rebuilt
+     * after the walls within or at the border of a cluster have changed.
+     * Queries share the state of the hierarchy, so a hierarchy supports only one query at a time.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    private static final int NONE = -1;
+    private static final int INFINITE = Integer.MAX_VALUE;
+    private static final short UNREACHABLE = -1;
+    private static final int MAX_CLUSTER_SIZE = 181;     // such that all distances within a cluster fit a short
+    private static final Maze.Direction[] DIRECTIONS = Maze.Direction.values();
+
+    private final Maze maze;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final Cluster[] clusters;       // clusters[i] is null if the cluster has not been built yet
+
+    // the state of the current query, connecting its start and target into the abstract graph
+    private int queryStart = NONE;
+    private int queryTarget = NONE;
+    private int[] startDistances;           // distances from the start to the entrances of its cluster
+    private int[] targetDistances;          // distances from the entrances of its cluster to the target
+    private int directDistance;             // distance from start to target within their common cluster
+
+    // scratch arrays of a breadth-first search within a single cluster, indexed by local cell number
+    private final int[] localDistances;
+    private final int[] localParents;
+    private final int[] localQueue;
+
+    private static class Cluster {
+        private final int[] entrances;      // the entrance cells of the cluster, in increasing order
+        private final short[] distances;    // distances[i*n+j] between entrance i and entrance j, or UNREACHABLE
+
+        private Cluster(int[] entrances, short[] distances) {
+            this.entrances = entrances;
+            this.distances = distances;
+        }
+
+        private int distance(int i, int j) {
+            short distance = this.distances[i * this.entrances.length + j];
+            return distance != UNREACHABLE ? distance : INFINITE;
+        }
+
+        private int indexOf(int cell) {
+            int index = Arrays.binarySearch(this.entrances, cell);
+            return index >= 0 ? index : NONE;
+        }
+    }
+
+    /**
+     * creates the hierarchy and registers it as a listener of the wall changes of the maze
+     * @param maze
+     * @param clusterSize
+     */
+    public ClusterHierarchy(Maze maze, int clusterSize) {
+        if (clusterSize < 1 || clusterSize > MAX_CLUSTER_SIZE) {
+            throw new IllegalArgumentException("Cluster size must be between 1 and " + MAX_CLUSTER_SIZE);
+        }
+        this.maze = maze;
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.clusterSize = clusterSize;
+        this.clustersX = (this.width + clusterSize - 1) / clusterSize;
+        int clustersY = (this.height + clusterSize - 1) / clusterSize;
+        this.clusters = new Cluster[this.clustersX * clustersY];
+        this.localDistances = new int[clusterSize * clusterSize];
+        this.localParents = new int[clusterSize * clusterSize];
+        this.localQueue = new int[clusterSize * clusterSize];
+        maze.addWallChangeListener(this);
+    }
+
+    @Override
+    public void wallChanged(int x, int y, Maze.Direction direction, boolean value) {
+        // the cluster of the cell and the cluster across the wall need to be rebuilt
+        this.clusters[this.clusterOf(x, y)] = null;
+        int neighbour = this.maze.getDirectNeighbour(x, y, direction);
+        if (neighbour != NONE) {
+            this.clusters[this.clusterOf(neighbour % this.width, neighbour / this.width)] = null;
+        }
+    }
+
+    @Override
+    public void allWallsChanged() {
+        Arrays.fill(this.clusters, null);
+    }
+
+    /**
+     * finds a shortest path along the cells of the maze by a search of the abstract graph
+     * followed by refinement of the route within the clusters along the abstract path
+     * @param startCell
+     * @param targetCell
+     * @return the path along all cells from start to target, with the number of steps as its total weight
+     * and the abstract vertices that have been visited by the search as visited
+     * or null if the target cannot be reached from the start
+     */
+    public IntPath shortestPath(int startCell, int targetCell) {
+        int numCells = this.width * this.height;
+        if (startCell < 0 || startCell >= numCells || targetCell < 0 || targetCell >= numCells) return null;
+
+        this.prepareQuery(startCell, targetCell);
+        GPath abstractPath;
+        try {
+            abstractPath = this.aStarShortestPath(startCell, targetCell, this::abstractWeight, this::manhattanDistance);
+        } finally {
+            this.queryStart = NONE;
+            this.queryTarget = NONE;
+        }
+        if (abstractPath == null) return null;
+
+        IntPath path = new IntPath();
+        path.totalWeight = abstractPath.getTotalWeight();
+        for (int vertex : abstractPath.getVisited()) {
+            path.visited.set(vertex);
+        }
+        int previous = NONE;
+        for (int vertex : abstractPath.getVertices()) {
+            if (previous == NONE) {
+                path.vertices.add(vertex);
+            } else if (this.clusterOf(previous) == this.clusterOf(vertex)) {
+                this.refine(previous, vertex, path.vertices);
+            } else {
+                path.vertices.add(vertex);      // a single step into the neighbouring cluster
+            }
+            previous = vertex;
+        }
+        return path;
+    }
+
+    /**
+     * connects the start and target of a query into the abstract graph
+     */
+    private void prepareQuery(int startCell, int targetCell) {
+        this.queryStart = startCell;
+        this.queryTarget = targetCell;
+        this.directDistance = INFINITE;
+
+        Cluster startCluster = this.cluster(this.clusterOf(startCell));
+        if (startCluster.indexOf(startCell) == NONE) {
+            this.localSearch(startCell);
+            this.startDistances = this.localDistancesTo(startCluster.entrances);
+            if (this.clusterOf(startCell) == this.clusterOf(targetCell)) {
+                this.directDistance = this.localDistances[this.localIndex(targetCell)];
+            }
+        }
+        Cluster targetCluster = this.cluster(this.clusterOf(targetCell));
+        if (targetCluster.indexOf(targetCell) == NONE) {
+            this.localSearch(targetCell);
+            this.targetDistances = this.localDistancesTo(targetCluster.entrances);
+        }
+    }
+
+    private boolean isQueryStart(int cell) {
+        return cell == this.queryStart && this.cluster(this.clusterOf(cell)).indexOf(cell) == NONE;
+    }
+
+    private boolean isQueryTarget(int cell) {
+        return cell == this.queryTarget && this.cluster(this.clusterOf(cell)).indexOf(cell) == NONE;
+    }
+
+    @Override
+    public Set<Integer> getNeighbours(Integer fromVertex) {
+        Set<Integer> neighbours = new HashSet<>();
+        int cell = fromVertex;
+        Cluster cluster = this.cluster(this.clusterOf(cell));
+
+        if (this.isQueryStart(cell)) {
+            for (int j = 0; j < cluster.entrances.length; j++) {
+                if (this.startDistances[j] != INFINITE) neighbours.add(cluster.entrances[j]);
+            }
+            if (this.directDistance != INFINITE) neighbours.add(this.queryTarget);
+            return neighbours;
+        }
+
+        int i = cluster.indexOf(cell);
+        if (i == NONE) return neighbours;
+
+        // the other entrances of the same cluster
+        for (int j = 0; j < cluster.entrances.length; j++) {
+            if (j != i && cluster.distance(i, j) != INFINITE) neighbours.add(cluster.entrances[j]);
+        }
+        // the entrances across the passages into the neighbouring clusters
+        int x = cell % this.width, y = cell / this.width;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int neighbour = this.maze.adjacentCell(x, y, DIRECTIONS[d]);
+            if (neighbour != NONE && this.clusterOf(neighbour) != this.clusterOf(cell)) neighbours.add(neighbour);
+        }
+        // the target of the query within the same cluster
+        if (this.queryTarget != NONE && this.clusterOf(this.queryTarget) == this.clusterOf(cell) &&
+                this.isQueryTarget(this.queryTarget) && this.targetDistances[i] != INFINITE) {
+            neighbours.add(this.queryTarget);
+        }
+        return neighbours;
+    }
+
+    /**
+     * @return the number of steps between two neighbouring vertices of the abstract graph
+     */
+    private double abstractWeight(int fromVertex, int toVertex) {
+        if (this.clusterOf(fromVertex) != this.clusterOf(toVertex)) return 1.0;
+
+        Cluster cluster = this.cluster(this.clusterOf(fromVertex));
+        if (this.isQueryStart(fromVertex)) {
+            int j = cluster.indexOf(toVertex);
+            return j != NONE ? this.startDistances[j] : this.directDistance;
+        }
+        int i = cluster.indexOf(fromVertex);
+        if (this.isQueryTarget(toVertex)) return this.targetDistances[i];
+        return cluster.distance(i, cluster.indexOf(toVertex));
+    }
+
+    public double manhattanDistance(int cell1, int cell2) {
+        return Math.abs(cell1 % this.width - cell2 % this.width) + Math.abs(cell1 / this.width - cell2 / this.width);
+    }
+
+    /**
+     * appends the cells of a shortest path within a single cluster, excluding fromCell and including toCell
+     */
+    private void refine(int fromCell, int toCell, IntArrayList cells) {
+        this.localSearch(fromCell);
+        int[] reversed = new int[this.localDistances[this.localIndex(toCell)]];
+        int cell = toCell;
+        for (int i = 0; i < reversed.length; i++) {
+            reversed[i] = cell;
+            cell = this.localParents[this.localIndex(cell)];
+        }
+        for (int i = reversed.length - 1; i >= 0; i--) {
+            cells.add(reversed[i]);
+        }
+    }
+
+    /**
+     * retrieves a cluster, building it if it has not been built since the last change of its walls
+     * @param index
+     * @return
+     */
+    private Cluster cluster(int index) {
+        Cluster cluster = this.clusters[index];
+        if (cluster == null) {
+            cluster = this.buildCluster(index);
+            this.clusters[index] = cluster;
+        }
+        return cluster;
+    }
+
+    private Cluster buildCluster(int index) {
+        int x0 = (index % this.clustersX) * this.clusterSize;
+        int y0 = (index / this.clustersX) * this.clusterSize;
+        int x1 = Math.min(x0 + this.clusterSize, this.width);
+        int y1 = Math.min(y0 + this.clusterSize, this.height);
+
+        // collect the cells with a passage into a neighbouring cluster, in increasing order
+        IntArrayList entrances = new IntArrayList();
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                if (x > x0 && x < x1 - 1 && y > y0 && y < y1 - 1) continue;     // an inner cell
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    int neighbour = this.maze.adjacentCell(x, y, DIRECTIONS[d]);
+                    if (neighbour != NONE && this.clusterOf(neighbour) != index) {
+                        entrances.add(x + y * this.width);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int[] entranceCells = entrances.toArray();
+        short[] distances = new short[entranceCells.length * entranceCells.length];
+        for (int i = 0; i < entranceCells.length; i++) {
+            this.localSearch(entranceCells[i]);
+            for (int j = 0; j < entranceCells.length; j++) {
+                int distance = this.localDistances[this.localIndex(entranceCells[j])];
+                distances[i * entranceCells.length + j] = distance != INFINITE ? (short) distance : UNREACHABLE;
+            }
+        }
+        return new Cluster(entranceCells, distances);
+    }
+
+    /**
+     * breadth-first search from the given cell, confined to the cluster of that cell
+     * leaves the distances and parents of all cells of the cluster in the local scratch arrays
+     * @param fromCell
+     */
+    private void localSearch(int fromCell) {
+        int cluster = this.clusterOf(fromCell);
+        Arrays.fill(this.localDistances, INFINITE);
+        int head = 0, tail = 0;
+        this.localDistances[this.localIndex(fromCell)] = 0;
+        this.localQueue[tail++] = fromCell;
+        while (head < tail) {
+            int cell = this.localQueue[head++];
+            int x = cell % this.width, y = cell / this.width;
+            int distance = this.localDistances[this.localIndex(cell)];
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int neighbour = this.maze.adjacentCell(x, y, DIRECTIONS[d]);
+                if (neighbour == NONE || this.clusterOf(neighbour) != cluster) continue;
+                int local = this.localIndex(neighbour);
+                if (this.localDistances[local] != INFINITE) continue;
+                this.localDistances[local] = distance + 1;
+                this.localParents[local] = cell;
+                this.localQueue[tail++] = neighbour;
+            }
+        }
+    }
+
+    private int[] localDistancesTo(int[] cells) {
+        int[] distances = new int[cells.length];
+        for (int j = 0; j < cells.length; j++) {
+            distances[j] = this.localDistances[this.localIndex(cells[j])];
+        }
+        return distances;
+    }
+
+    private int clusterOf(int x, int y) {
+        return (x / this.clusterSize) + (y / this.clusterSize) * this.clustersX;
+    }
+
+    private int clusterOf(int cell) {
+        return this.clusterOf(cell % this.width, cell / this.width);
+    }
+
+    /**
+     * @return the number of a cell within its cluster
+     */
+    private int localIndex(int cell) {
+        return (cell % this.width) % this.clusterSize + ((cell / this.width) % this.clusterSize) * this.clusterSize;
+    }
+
+    public int getClusterSize() {
+        return this.clusterSize;
+    }
+}
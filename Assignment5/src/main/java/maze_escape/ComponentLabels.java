@@ -0,0 +1,229 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public class ComponentLabels {
+
+    /**
+     * Labels every cell of a Maze with the id of its connected component, i.e. the set of cells that can reach each other
+     * The labels are calculated by a union-find over the passages between adjacent cells, in three passes:
+     *  1. the maze is split into tiles of TILE_ROWS rows, which are labelled in parallel by a union-find per tile
+     *  2. the components of adjacent tiles are merged along the passages across their borders
+     *  3. all cells are flattened onto the root of their component and renumbered in parallel
+     * Components are numbered 0 .. numComponents-1 in order of their first cell,
+     * so after labelling, solvability checks and reachability checks are single array lookups.
+     */
+    public static final int TILE_ROWS = 64;
+
+    private final int width;
+    private final int height;
+    private final WallBitboard walls;
+    private final int[] labels;         // the union-find parent of every cell, and finally its component id
+    private final int[] componentSizes;
+
+    /**
+     * labels the components of the maze in parallel on the common ForkJoinPool
+     * @param maze
+     */
+    public ComponentLabels(Maze maze) {
+        this(maze, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * labels the components of the maze in parallel
+     * @param maze
+     * @param pool      the pool of worker threads to label the tiles
+     */
+    public ComponentLabels(Maze maze, ForkJoinPool pool) {
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.walls = maze.getWalls();
+        this.labels = new int[maze.getNumberOfCells()];
+        int numTiles = (this.height + TILE_ROWS - 1) / TILE_ROWS;
+
+        // 1. union-find within every tile
+        forEachTile(pool, numTiles, this::uniteTile);
+
+        // 2. merge the tiles along the passages across their north borders
+        for (int y = TILE_ROWS; y < this.height; y += TILE_ROWS) {
+            for (int x = 0; x < this.width; x++) {
+                if (!this.walls.getNorth(x, y)) this.unite(x + (y - 1) * this.width, x + y * this.width);
+            }
+        }
+
+        // 3. flatten all cells onto their root, which is the first cell of their component
+        int[] numRoots = new int[numTiles];
+        forEachTile(pool, numTiles, tile -> numRoots[tile] = this.flattenTile(tile));
+        int[] firstRoots = new int[numTiles + 1];
+        for (int tile = 0; tile < numTiles; tile++) {
+            firstRoots[tile + 1] = firstRoots[tile] + numRoots[tile];
+        }
+        int[] roots = new int[firstRoots[numTiles]];
+        forEachTile(pool, numTiles, tile -> this.collectRoots(tile, roots, firstRoots[tile]));
+
+        // renumber the roots into component ids, and count the cells per component
+        AtomicIntegerArray sizes = new AtomicIntegerArray(roots.length);
+        forEachTile(pool, numTiles, tile -> this.renumberTile(tile, roots, sizes));
+        this.componentSizes = new int[roots.length];
+        for (int component = 0; component < roots.length; component++) {
+            this.componentSizes[component] = sizes.get(component);
+        }
+    }
+
+    private static void forEachTile(ForkJoinPool pool, int numTiles, IntConsumer action) {
+        pool.submit(() -> IntStream.range(0, numTiles).parallel().forEach(action)).join();
+    }
+
+    private int firstCellOf(int tile) {
+        return tile * TILE_ROWS * this.width;
+    }
+
+    private int endCellOf(int tile) {
+        return Math.min(tile * TILE_ROWS + TILE_ROWS, this.height) * this.width;
+    }
+
+    /**
+     * unites all cells of a tile with their west and north neighbours inside the tile, if there is a passage
+     * @param tile
+     */
+    private void uniteTile(int tile) {
+        int firstRow = tile * TILE_ROWS;
+        int endRow = Math.min(firstRow + TILE_ROWS, this.height);
+        for (int y = firstRow; y < endRow; y++) {
+            int rowCell = y * this.width;
+            for (int x = 0; x < this.width; x++) {
+                int cell = rowCell + x;
+                // the cell itself is still a root on its own, so it can share the parent of its west neighbour
+                this.labels[cell] = x > 0 && !this.walls.getWest(x, y) ? this.labels[cell - 1] : cell;
+                if (y > firstRow && !this.walls.getNorth(x, y)) this.unite(cell - this.width, cell);
+            }
+        }
+    }
+
+    /**
+     * merges the components of two cells, the root with the lowest cell number becomes the root of both
+     * along Rem's algorithm: both paths towards the root are walked up in lock-step by parent number,
+     * splicing the lower parent into the other path, until the paths meet or a root is linked
+     * see Patwary, Blair and Manne, "Experiments on Union-Find Algorithms for the Disjoint-Set Data Structure" (2010)
+     */
+    private void unite(int cell1, int cell2) {
+        int[] parents = this.labels;
+        while (parents[cell1] != parents[cell2]) {
+            if (parents[cell1] < parents[cell2]) {
+                int swap = cell1;
+                cell1 = cell2;
+                cell2 = swap;
+            }
+            // parents[cell1] > parents[cell2]
+            if (parents[cell1] == cell1) {
+                parents[cell1] = parents[cell2];
+                return;
+            }
+            int next = parents[cell1];
+            parents[cell1] = parents[cell2];
+            cell1 = next;
+        }
+    }
+
+    /**
+     * links every cell of a tile directly to its root
+     * cells of other tiles are only read, and concurrently flattened cells still link to the same root
+     * @param tile
+     * @return the number of roots in the tile
+     */
+    private int flattenTile(int tile) {
+        int numRoots = 0;
+        for (int cell = this.firstCellOf(tile); cell < this.endCellOf(tile); cell++) {
+            int root = cell;
+            while (this.labels[root] != root) root = this.labels[root];
+            this.labels[cell] = root;
+            if (root == cell) numRoots++;
+        }
+        return numRoots;
+    }
+
+    private void collectRoots(int tile, int[] roots, int firstRoot) {
+        for (int cell = this.firstCellOf(tile); cell < this.endCellOf(tile); cell++) {
+            if (this.labels[cell] == cell) roots[firstRoot++] = cell;
+        }
+    }
+
+    /**
+     * replaces the root of every cell of a tile by the id of its component, i.e. the index of the root in roots
+     * and adds the cells to the sizes of their components, per run of cells of the same component
+     */
+    private void renumberTile(int tile, int[] roots, AtomicIntegerArray sizes) {
+        int runRoot = -1, runComponent = -1, runLength = 0;
+        for (int cell = this.firstCellOf(tile); cell < this.endCellOf(tile); cell++) {
+            int root = this.labels[cell];
+            if (root != runRoot) {
+                if (runLength > 0) sizes.addAndGet(runComponent, runLength);
+                runRoot = root;
+                runComponent = Arrays.binarySearch(roots, root);
+                runLength = 0;
+            }
+            this.labels[cell] = runComponent;
+            runLength++;
+        }
+        if (runLength > 0) sizes.addAndGet(runComponent, runLength);
+    }
+
+    /**
+     * @return the number of connected components, isolated cells included
+     */
+    public int getNumComponents() {
+        return this.componentSizes.length;
+    }
+
+    /**
+     * @param cell
+     * @return the id of the component of the cell
+     */
+    public int componentOf(int cell) {
+        return this.labels[cell];
+    }
+
+    /**
+     * @param component
+     * @return the number of cells in the component
+     */
+    public int getComponentSize(int component) {
+        return this.componentSizes[component];
+    }
+
+    /**
+     * @param cell1
+     * @param cell2
+     * @return whether either cell can be reached from the other
+     */
+    public boolean isConnected(int cell1, int cell2) {
+        return this.labels[cell1] == this.labels[cell2];
+    }
+
+    /**
+     * @return the id of the component with the most cells
+     */
+    public int getLargestComponent() {
+        int largest = 0;
+        for (int component = 1; component < this.componentSizes.length; component++) {
+            if (this.componentSizes[component] > this.componentSizes[largest]) largest = component;
+        }
+        return largest;
+    }
+
+    /**
+     * @param component
+     * @return all cells of the component
+     */
+    public IntBitSet cellsOf(int component) {
+        IntBitSet cells = new IntBitSet(this.labels.length);
+        for (int cell = 0; cell < this.labels.length; cell++) {
+            if (this.labels[cell] == component) cells.add(cell);
+        }
+        return cells;
+    }
+}
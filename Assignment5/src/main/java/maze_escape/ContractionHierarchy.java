@@ -0,0 +1,672 @@
+package maze_escape;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class ContractionHierarchy {
+
+    /**
+     * Contraction hierarchy (CH) index over the vertices of a JunctionGraph, for fast repeated shortest path queries
+     * see Geisberger, Sanders, Schultes and Delling, "Contraction Hierarchies: Faster and Simpler
+     * Hierarchical Routing in Road Networks" (2008)
+     *
+     * The index is built offline by contracting all vertices one by one, in order of their importance:
+     * a contracted vertex is removed from the graph, and every shortest path from one of its neighbours to another
+     * that runs through the vertex is replaced by a shortcut edge, unless a local witness search finds
+     * another path that is at least as short.
+     * The rank of a vertex is its position in the contraction order. Every vertex keeps its outgoing edges
+     * towards higher ranks and its incoming edges from higher ranks (original edges and shortcuts)
+     * in two sets of compressed-sparse-row arrays, like the JunctionGraph.
+     * Edges are directed, because the entry and exit of a maze can be vertices that the junctions around them
+     * pass by in Maze.getNeighbours().
+     *
+     * A query runs Dijkstra's algorithm upwards from both the start and the target, which meet at the highest ranked
+     * vertex of a shortest path. Both searches only settle a small fraction of the vertices,
+     * and reuse pooled scratch state without any allocation per visited vertex.
+     * The shortcuts of the resulting path are unpacked into the junctions along the original passages,
+     * such that the path and its weight match a dijkstraShortestPath() on the JunctionGraph.
+     *
+     * The index can be saved to and loaded from a file, to be reused by later runs on the same maze.
+     */
+    private static final int FILE_MAGIC = 0x43484931;   // "CHI1"
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final int NONE = -1;
+
+    // limit of the witness searches while contracting, which trades the number of shortcuts for build time
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+
+    private final int[] cells;                  // cells[i] holds the cell number of vertex i, in increasing order
+    private final int[] ranks;                  // ranks[i] holds the position of vertex i in the contraction order
+    private final UpwardEdges forwardEdges;     // the edges from every vertex towards higher ranked vertices
+    private final UpwardEdges backwardEdges;    // the edges into every vertex from higher ranked vertices
+    private final Queue<QueryScratch> scratches = new ConcurrentLinkedQueue<>();
+
+    private ContractionHierarchy(int[] cells, int[] ranks, UpwardEdges forwardEdges, UpwardEdges backwardEdges) {
+        this.cells = cells;
+        this.ranks = ranks;
+        this.forwardEdges = forwardEdges;
+        this.backwardEdges = backwardEdges;
+    }
+
+    public int getNumVertices() {
+        return this.cells.length;
+    }
+
+    /**
+     * @return the number of upward edges in either direction, original edges and shortcuts together
+     */
+    public int getNumEdges() {
+        return this.forwardEdges.targets.length + this.backwardEdges.targets.length;
+    }
+
+    public int getNumShortcuts() {
+        return this.forwardEdges.getNumShortcuts() + this.backwardEdges.getNumShortcuts();
+    }
+
+    /**
+     * contracts all vertices of the compressed-sparse-row arrays of a JunctionGraph
+     * see JunctionGraph.buildContractionHierarchy()
+     * @param cells
+     * @param offsets
+     * @param targets
+     * @param weights
+     * @return
+     */
+    static ContractionHierarchy build(int[] cells, int[] offsets, int[] targets, double[] weights) {
+        return new Contraction(cells.length, offsets, targets, weights).contractAll(cells);
+    }
+
+    /**
+     * calculates the weight of the shortest path between two cells by the bidirectional upward search
+     * this method can be called by multiple threads at the same time
+     * @param startCell
+     * @param targetCell
+     * @return the weight of the shortest path from start to target,
+     * or Double.MAX_VALUE if the target cannot be reached or either cell is not a vertex
+     */
+    public double distance(int startCell, int targetCell) {
+        int start = Arrays.binarySearch(this.cells, startCell);
+        int target = Arrays.binarySearch(this.cells, targetCell);
+        if (start < 0 || target < 0) return Double.MAX_VALUE;
+
+        QueryScratch scratch = this.borrowScratch();
+        try {
+            int meeting = this.search(start, target, scratch);
+            return meeting != NONE ? scratch.forward.weightSumTo[meeting] + scratch.backward.weightSumTo[meeting]
+                    : Double.MAX_VALUE;
+        } finally {
+            this.scratches.offer(scratch);
+        }
+    }
+
+    /**
+     * calculates the shortest path between two cells by the bidirectional upward search
+     * this method can be called by multiple threads at the same time
+     * @param startCell
+     * @param targetCell
+     * @return the path along all junctions from start to target, without visited vertices
+     * or null if the target cannot be reached or either cell is not a vertex
+     */
+    public IntPath shortestPath(int startCell, int targetCell) {
+        int start = Arrays.binarySearch(this.cells, startCell);
+        int target = Arrays.binarySearch(this.cells, targetCell);
+        if (start < 0 || target < 0) return null;
+
+        QueryScratch scratch = this.borrowScratch();
+        try {
+            int meeting = this.search(start, target, scratch);
+            if (meeting == NONE) return null;
+
+            IntPath path = new IntPath();
+            path.totalWeight = scratch.forward.weightSumTo[meeting] + scratch.backward.weightSumTo[meeting];
+
+            // the upward path from the start towards the meeting vertex is found backwards
+            IntArrayList hierarchyPath = new IntArrayList();
+            for (int vertex = meeting; vertex != start; vertex = scratch.forward.parent[vertex]) {
+                hierarchyPath.add(vertex);
+            }
+            hierarchyPath.add(start);
+            hierarchyPath.reverse();
+            // followed by the downward path from the meeting vertex towards the target
+            for (int vertex = meeting; vertex != target; ) {
+                vertex = scratch.backward.parent[vertex];
+                hierarchyPath.add(vertex);
+            }
+
+            path.vertices.add(this.cells[start]);
+            for (int i = 1; i < hierarchyPath.size(); i++) {
+                this.unpackEdge(hierarchyPath.get(i - 1), hierarchyPath.get(i), path.vertices);
+            }
+            return path;
+        } finally {
+            this.scratches.offer(scratch);
+        }
+    }
+
+    private QueryScratch borrowScratch() {
+        QueryScratch scratch = this.scratches.poll();
+        return scratch != null ? scratch : new QueryScratch(this.cells.length);
+    }
+
+    /**
+     * runs the upward searches from start and target alternately, always expanding the side with the smallest key
+     * until neither side can find a shorter connection than the best meeting vertex found so far
+     * @return the meeting vertex of both searches on a shortest path, or NONE if start and target are not connected
+     */
+    private int search(int start, int target, QueryScratch scratch) {
+        SearchSide forward = scratch.forward;
+        SearchSide backward = scratch.backward;
+        forward.restart(start);
+        backward.restart(target);
+
+        double best = Double.MAX_VALUE;
+        int meeting = NONE;
+        while (true) {
+            double forwardKey = forward.queue.isEmpty() ? Double.MAX_VALUE : forward.queue.peekMinKey();
+            double backwardKey = backward.queue.isEmpty() ? Double.MAX_VALUE : backward.queue.peekMinKey();
+            if (Math.min(forwardKey, backwardKey) >= best) return meeting;
+
+            boolean forwardSide = forwardKey <= backwardKey;
+            SearchSide side = forwardSide ? forward : backward;
+            SearchSide other = forwardSide ? backward : forward;
+            UpwardEdges edges = forwardSide ? this.forwardEdges : this.backwardEdges;
+            int nearest = side.queue.pollMin();
+            double weightSum = side.weightSumTo[nearest];
+            if (other.hasReached(nearest) && weightSum + other.weightSumTo[nearest] < best) {
+                best = weightSum + other.weightSumTo[nearest];
+                meeting = nearest;
+            }
+
+            for (int e = edges.offsets[nearest]; e < edges.offsets[nearest + 1]; e++) {
+                int neighbour = edges.targets[e];
+                double sum = weightSum + edges.weights[e];
+                if (!side.hasReached(neighbour) || sum < side.weightSumTo[neighbour]) {
+                    side.reachedStamps[neighbour] = side.generation;
+                    side.weightSumTo[neighbour] = sum;
+                    side.parent[neighbour] = nearest;
+                    side.queue.insertOrDecrease(neighbour, sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * appends the junctions along the edge from vertex 'from' to vertex 'to' into the path,
+     * replacing every shortcut by the two edges it bypasses, until only original edges remain
+     */
+    private void unpackEdge(int from, int to, IntArrayList path) {
+        // the pending edges of the unpacking as pairs (to, from), the next one to unpack on top
+        IntArrayList pending = new IntArrayList();
+        pending.add(to);
+        pending.add(from);
+        while (!pending.isEmpty()) {
+            int edgeFrom = pending.removeLast();
+            int edgeTo = pending.removeLast();
+            int middle = this.middleOf(edgeFrom, edgeTo);
+            if (middle == NONE) {
+                path.add(this.cells[edgeTo]);
+            } else {
+                pending.add(edgeTo);
+                pending.add(middle);
+                pending.add(middle);
+                pending.add(edgeFrom);
+            }
+        }
+    }
+
+    /**
+     * @return the vertex that is bypassed by the edge from vertex 'from' to vertex 'to', or NONE for an original edge
+     * the edge is held by the lower ranked of both vertices
+     */
+    private int middleOf(int from, int to) {
+        boolean upwards = this.ranks[from] < this.ranks[to];
+        UpwardEdges edges = upwards ? this.forwardEdges : this.backwardEdges;
+        int lower = upwards ? from : to;
+        int higher = upwards ? to : from;
+        for (int e = edges.offsets[lower]; e < edges.offsets[lower + 1]; e++) {
+            if (edges.targets[e] == higher) return edges.middles[e];
+        }
+        throw new IllegalStateException("No edge from vertex " + this.cells[from] + " to " + this.cells[to]);
+    }
+
+    /**
+     * Upward edges in compressed-sparse-row arrays
+     * The edges of the vertex at index i are found at positions offsets[i] upto offsets[i+1]
+     * of targets, weights and middles, where middles[e] holds the vertex that is bypassed by a shortcut, or -1
+     */
+    private static class UpwardEdges {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final int[] middles;
+
+        private UpwardEdges(int[] offsets, int[] targets, double[] weights, int[] middles) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.middles = middles;
+        }
+
+        /**
+         * packs the edges of all vertices into compressed-sparse-row arrays
+         */
+        private static UpwardEdges pack(EdgeLists edges, int numVertices) {
+            int[] offsets = new int[numVertices + 1];
+            for (int v = 0; v < numVertices; v++) {
+                offsets[v + 1] = offsets[v] + edges.degrees[v];
+            }
+            int[] targets = new int[offsets[numVertices]];
+            double[] weights = new double[targets.length];
+            int[] middles = new int[targets.length];
+            for (int v = 0; v < numVertices; v++) {
+                int position = offsets[v];
+                for (int e = edges.heads[v]; e != NONE; e = edges.next[e]) {
+                    targets[position] = edges.targets[e];
+                    weights[position] = edges.weights[e];
+                    middles[position] = edges.middles[e];
+                    position++;
+                }
+            }
+            return new UpwardEdges(offsets, targets, weights, middles);
+        }
+
+        private int getNumShortcuts() {
+            int numShortcuts = 0;
+            for (int middle : this.middles) {
+                if (middle != NONE) numShortcuts++;
+            }
+            return numShortcuts;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeInt(this.targets.length);
+            for (int offset : this.offsets) output.writeInt(offset);
+            for (int target : this.targets) output.writeInt(target);
+            for (double weight : this.weights) output.writeDouble(weight);
+            for (int middle : this.middles) output.writeInt(middle);
+        }
+
+        private static UpwardEdges read(DataInputStream input, int numVertices) throws IOException {
+            int numEdges = input.readInt();
+            int[] offsets = new int[numVertices + 1];
+            int[] targets = new int[numEdges];
+            double[] weights = new double[numEdges];
+            int[] middles = new int[numEdges];
+            for (int i = 0; i <= numVertices; i++) offsets[i] = input.readInt();
+            for (int e = 0; e < numEdges; e++) targets[e] = input.readInt();
+            for (int e = 0; e < numEdges; e++) weights[e] = input.readDouble();
+            for (int e = 0; e < numEdges; e++) middles[e] = input.readInt();
+            return new UpwardEdges(offsets, targets, weights, middles);
+        }
+    }
+
+    /**
+     * Reusable state of one direction of the upward searches, like JunctionGraph.SearchScratch
+     * Entries of weightSumTo and parent are only valid if the reachedStamps of their vertex match the generation
+     */
+    private static class SearchSide {
+        private final double[] weightSumTo;
+        private final int[] parent;
+        private final int[] reachedStamps;
+        private final IndexedMinHeap queue;
+        private int generation = 0;
+
+        private SearchSide(int numVertices) {
+            this.weightSumTo = new double[numVertices];
+            this.parent = new int[numVertices];
+            this.reachedStamps = new int[numVertices];
+            this.queue = new IndexedMinHeap(numVertices);
+        }
+
+        private void restart(int source) {
+            this.queue.clear();
+            if (++this.generation == Integer.MAX_VALUE) {
+                // restart the stamps, before the generations would wrap around
+                Arrays.fill(this.reachedStamps, 0);
+                this.generation = 1;
+            }
+            this.reachedStamps[source] = this.generation;
+            this.weightSumTo[source] = 0.0;
+            this.parent[source] = source;
+            this.queue.insert(source, 0.0);
+        }
+
+        private boolean hasReached(int vertex) {
+            return this.reachedStamps[vertex] == this.generation;
+        }
+    }
+
+    private static class QueryScratch {
+        private final SearchSide forward;
+        private final SearchSide backward;
+
+        private QueryScratch(int numVertices) {
+            this.forward = new SearchSide(numVertices);
+            this.backward = new SearchSide(numVertices);
+        }
+    }
+
+    /**
+     * The edges of every vertex of the mutable graph during the contraction, towards (or from) the neighbours
+     * that have not been contracted yet, or towards (or from) the higher ranked neighbours of a contracted vertex
+     * All edges share flat pools of growable arrays, where the edges of a vertex are linked from heads[v]
+     * along next[e], such that the graph does not need any array per vertex.
+     * The slots of removed edges are linked into a free list, to be reused by later shortcuts.
+     * Parallel edges between the same two vertices are merged into the lightest edge.
+     */
+    private static class EdgeLists {
+        private final int[] heads;          // heads[v] holds the first edge of vertex v, or NONE
+        private final int[] degrees;        // degrees[v] holds the number of edges of vertex v
+        private int[] next;                 // next[e] holds the next edge of the same vertex, or NONE
+        private int[] targets;
+        private double[] weights;
+        private int[] middles;
+        private int size = 0;               // the number of slots in use or on the free list
+        private int free = NONE;            // the first slot of the free list
+
+        private EdgeLists(int numVertices, int capacity) {
+            this.heads = new int[numVertices];
+            Arrays.fill(this.heads, NONE);
+            this.degrees = new int[numVertices];
+            capacity = Math.max(capacity, 16);
+            this.next = new int[capacity];
+            this.targets = new int[capacity];
+            this.weights = new double[capacity];
+            this.middles = new int[capacity];
+        }
+
+        private void addOrImprove(int from, int to, double weight, int middle) {
+            for (int e = this.heads[from]; e != NONE; e = this.next[e]) {
+                if (this.targets[e] == to) {
+                    if (weight < this.weights[e]) {
+                        this.weights[e] = weight;
+                        this.middles[e] = middle;
+                    }
+                    return;
+                }
+            }
+
+            // take a slot from the free list, or from the end of the pools
+            int e = this.free;
+            if (e != NONE) {
+                this.free = this.next[e];
+            } else {
+                if (this.size == this.targets.length) {
+                    int capacity = this.size + (this.size >> 1);
+                    this.next = Arrays.copyOf(this.next, capacity);
+                    this.targets = Arrays.copyOf(this.targets, capacity);
+                    this.weights = Arrays.copyOf(this.weights, capacity);
+                    this.middles = Arrays.copyOf(this.middles, capacity);
+                }
+                e = this.size++;
+            }
+            this.targets[e] = to;
+            this.weights[e] = weight;
+            this.middles[e] = middle;
+            this.next[e] = this.heads[from];
+            this.heads[from] = e;
+            this.degrees[from]++;
+        }
+
+        private void remove(int from, int to) {
+            int previous = NONE;
+            for (int e = this.heads[from]; e != NONE; previous = e, e = this.next[e]) {
+                if (this.targets[e] == to) {
+                    if (previous == NONE) {
+                        this.heads[from] = this.next[e];
+                    } else {
+                        this.next[previous] = this.next[e];
+                    }
+                    this.next[e] = this.free;
+                    this.free = e;
+                    this.degrees[from]--;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * releases the pools of all edges, after they have been packed
+         */
+        private void release() {
+            this.next = null;
+            this.targets = null;
+            this.weights = null;
+            this.middles = null;
+        }
+    }
+
+    /**
+     * The mutable graph during the contraction of all vertices, with the outgoing and incoming edges of every vertex
+     * Loops are dropped, as they never take part in a shortest path.
+     */
+    private static class Contraction {
+        private final int numVertices;
+        private final EdgeLists outgoing;
+        private final EdgeLists incoming;
+        private final int[] contractedNeighbours;   // the number of neighbours of every vertex that have been contracted
+
+        // state of the witness searches
+        private final double[] witnessWeights;
+        private final int[] witnessStamps;
+        private final IndexedMinHeap witnessQueue;
+        private int witnessGeneration = 0;
+
+        // the shortcuts that are found by the latest call of findShortcuts(), as pairs (from, to) with their weights
+        private final IntArrayList shortcutEnds = new IntArrayList();
+        private double[] shortcutWeights = new double[16];
+
+        private Contraction(int numVertices, int[] offsets, int[] targets, double[] weights) {
+            this.numVertices = numVertices;
+            this.outgoing = new EdgeLists(numVertices, targets.length);
+            this.incoming = new EdgeLists(numVertices, targets.length);
+            this.contractedNeighbours = new int[numVertices];
+            this.witnessWeights = new double[numVertices];
+            this.witnessStamps = new int[numVertices];
+            this.witnessQueue = new IndexedMinHeap(numVertices);
+
+            for (int v = 0; v < numVertices; v++) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    if (targets[e] == v) continue;
+                    this.outgoing.addOrImprove(v, targets[e], weights[e], NONE);
+                    this.incoming.addOrImprove(targets[e], v, weights[e], NONE);
+                }
+            }
+        }
+
+        /**
+         * contracts all vertices in order of their priority, re-evaluating the priority of a vertex lazily
+         * when it comes out of the queue, and eagerly when one of its neighbours has been contracted
+         */
+        private ContractionHierarchy contractAll(int[] cells) {
+            int[] ranks = new int[this.numVertices];
+
+            IndexedMinHeap queue = new IndexedMinHeap(this.numVertices);
+            for (int v = 0; v < this.numVertices; v++) {
+                queue.insert(v, this.priority(v));
+            }
+
+            int rank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.pollMin();
+                double priority = this.priority(v);
+                if (!queue.isEmpty() && priority > queue.peekMinKey()) {
+                    queue.insert(v, priority);
+                    continue;
+                }
+
+                // the remaining edges of v all lead to (or come from) vertices that will be ranked higher
+                // they stay in place as the upward edges of v, because no edge will be added to v or removed from v
+                ranks[v] = rank++;
+
+                // the shortcuts of v have just been found by its priority
+                for (int s = 0; s < this.shortcutEnds.size() / 2; s++) {
+                    int from = this.shortcutEnds.get(2 * s), to = this.shortcutEnds.get(2 * s + 1);
+                    this.outgoing.addOrImprove(from, to, this.shortcutWeights[s], v);
+                    this.incoming.addOrImprove(to, from, this.shortcutWeights[s], v);
+                }
+
+                // remove v from the graph, by removing the edges of its neighbours towards (or from) v
+                // the freed slots are reused by the shortcuts of later contractions
+                for (int e = this.outgoing.heads[v]; e != NONE; e = this.outgoing.next[e]) {
+                    int neighbour = this.outgoing.targets[e];
+                    this.incoming.remove(neighbour, v);
+                    this.contractedNeighbours[neighbour]++;
+                }
+                for (int e = this.incoming.heads[v]; e != NONE; e = this.incoming.next[e]) {
+                    int neighbour = this.incoming.targets[e];
+                    this.outgoing.remove(neighbour, v);
+                    this.contractedNeighbours[neighbour]++;
+                }
+                // and re-evaluate its neighbours
+                for (int e = this.outgoing.heads[v]; e != NONE; e = this.outgoing.next[e]) {
+                    int neighbour = this.outgoing.targets[e];
+                    queue.insertOrDecrease(neighbour, this.priority(neighbour));
+                }
+                for (int e = this.incoming.heads[v]; e != NONE; e = this.incoming.next[e]) {
+                    int neighbour = this.incoming.targets[e];
+                    queue.insertOrDecrease(neighbour, this.priority(neighbour));
+                }
+            }
+
+            // pack one direction at a time, releasing its pools before the other direction is packed
+            UpwardEdges forwardEdges = UpwardEdges.pack(this.outgoing, this.numVertices);
+            this.outgoing.release();
+            UpwardEdges backwardEdges = UpwardEdges.pack(this.incoming, this.numVertices);
+            this.incoming.release();
+            return new ContractionHierarchy(cells, ranks, forwardEdges, backwardEdges);
+        }
+
+        /**
+         * estimates the cost of contracting a vertex by the number of shortcuts it would add
+         * minus the number of edges it would remove, plus the number of its neighbours that have been contracted
+         * which spreads the contraction uniformly over the graph
+         */
+        private double priority(int v) {
+            this.findShortcuts(v);
+            int numShortcuts = this.shortcutEnds.size() / 2;
+            return 2 * (numShortcuts - this.outgoing.degrees[v] - this.incoming.degrees[v]) +
+                    this.contractedNeighbours[v];
+        }
+
+        /**
+         * finds all shortcuts that are needed from the incoming neighbours to the outgoing neighbours of v
+         * when v would be contracted
+         * a shortcut is needed unless a witness search from the incoming neighbour, avoiding v,
+         * finds a path towards the outgoing neighbour that is at most as heavy as the path via v
+         * @param v
+         */
+        private void findShortcuts(int v) {
+            this.shortcutEnds.clear();
+            EdgeLists outgoing = this.outgoing, incoming = this.incoming;
+            if (outgoing.degrees[v] == 0 || incoming.degrees[v] == 0) return;
+            double maxOutgoingWeight = 0.0;
+            for (int j = outgoing.heads[v]; j != NONE; j = outgoing.next[j]) {
+                maxOutgoingWeight = Math.max(maxOutgoingWeight, outgoing.weights[j]);
+            }
+
+            for (int i = incoming.heads[v]; i != NONE; i = incoming.next[i]) {
+                int from = incoming.targets[i];
+                double incomingWeight = incoming.weights[i];
+                this.witnessSearch(from, v, incomingWeight + maxOutgoingWeight);
+                for (int j = outgoing.heads[v]; j != NONE; j = outgoing.next[j]) {
+                    int to = outgoing.targets[j];
+                    if (to == from) continue;
+                    double viaWeight = incomingWeight + outgoing.weights[j];
+                    if (this.witnessStamps[to] == this.witnessGeneration && this.witnessWeights[to] <= viaWeight) {
+                        continue;
+                    }
+                    int numShortcuts = this.shortcutEnds.size() / 2;
+                    if (numShortcuts == this.shortcutWeights.length) {
+                        this.shortcutWeights = Arrays.copyOf(this.shortcutWeights, 2 * numShortcuts);
+                    }
+                    this.shortcutEnds.add(from);
+                    this.shortcutEnds.add(to);
+                    this.shortcutWeights[numShortcuts] = viaWeight;
+                }
+            }
+        }
+
+        /**
+         * runs Dijkstra's algorithm from the source over the remaining graph without the excluded vertex
+         * up to the given weight, or until WITNESS_SETTLE_LIMIT vertices have been settled
+         */
+        private void witnessSearch(int source, int excluded, double maxWeight) {
+            this.witnessQueue.clear();
+            if (++this.witnessGeneration == Integer.MAX_VALUE) {
+                Arrays.fill(this.witnessStamps, 0);
+                this.witnessGeneration = 1;
+            }
+            int generation = this.witnessGeneration;
+            this.witnessStamps[source] = generation;
+            this.witnessWeights[source] = 0.0;
+            this.witnessQueue.insert(source, 0.0);
+
+            int numSettled = 0;
+            while (!this.witnessQueue.isEmpty() && numSettled++ < WITNESS_SETTLE_LIMIT) {
+                int nearest = this.witnessQueue.pollMin();
+                double weightSum = this.witnessWeights[nearest];
+                if (weightSum > maxWeight) return;
+                for (int e = this.outgoing.heads[nearest]; e != NONE; e = this.outgoing.next[e]) {
+                    int neighbour = this.outgoing.targets[e];
+                    if (neighbour == excluded) continue;
+                    double sum = weightSum + this.outgoing.weights[e];
+                    if (this.witnessStamps[neighbour] != generation || sum < this.witnessWeights[neighbour]) {
+                        this.witnessStamps[neighbour] = generation;
+                        this.witnessWeights[neighbour] = sum;
+                        this.witnessQueue.insertOrDecrease(neighbour, sum);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * writes the contraction hierarchy into a binary file
+     * @param file
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(this.cells.length);
+            for (int cell : this.cells) output.writeInt(cell);
+            for (int rank : this.ranks) output.writeInt(rank);
+            this.forwardEdges.write(output);
+            this.backwardEdges.write(output);
+        }
+    }
+
+    /**
+     * reads a contraction hierarchy from a binary file that has been written by save()
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static ContractionHierarchy load(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE))) {
+            if (input.readInt() != FILE_MAGIC) {
+                throw new IOException("File " + file + " does not contain a contraction hierarchy");
+            }
+            int numVertices = input.readInt();
+            int[] cells = new int[numVertices];
+            int[] ranks = new int[numVertices];
+            for (int i = 0; i < numVertices; i++) cells[i] = input.readInt();
+            for (int i = 0; i < numVertices; i++) ranks[i] = input.readInt();
+            UpwardEdges forwardEdges = UpwardEdges.read(input, numVertices);
+            UpwardEdges backwardEdges = UpwardEdges.read(input, numVertices);
+            return new ContractionHierarchy(cells, ranks, forwardEdges, backwardEdges);
+        }
+    }
+}
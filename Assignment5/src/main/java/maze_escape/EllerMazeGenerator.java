@@ -0,0 +1,167 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class EllerMazeGenerator {
+
+    /**
+     * Streaming maze generator along Eller's algorithm
+     * It produces a perfect maze (a random spanning tree of all cells, like generateRandomizedPrim)
+     * one row at a time, keeping only the state of the current row in memory.
+     * So the peak memory only depends on the width of the maze, and arbitrarily tall mazes
+     * can be streamed into a file or any other RowSink.
+     * see https://en.wikipedia.org/wiki/Maze_generation_algorithm
+     *
+     * Every cell of the current row carries the label of the set of cells that it is connected with
+     * through the rows above. Adjacent cells of different sets are randomly joined within a row,
+     * and every set is continued into the next row through at least one random opening in its south walls.
+     * The last row joins all remaining sets.
+     *
+     * Random choices are drawn from the randomizer of the Maze, such that mazes are reproducible
+     * after Maze.reSeedRandomizer(seed).
+     */
+    public interface RowSink {
+        /**
+         * receives the north walls of row y, with 0 <= y <= height
+         * row y == height holds the south walls of the last row of cells
+         * @param y
+         * @param words  bit x represents the north wall of cell(x,y), in the layout of WallBitboard
+         */
+        void northRow(int y, long[] words);
+
+        /**
+         * receives the west walls of row y, with 0 <= y < height
+         * @param y
+         * @param words  bit x represents the west wall of cell(x,y), in the layout of WallBitboard
+         *               bit width represents the east wall of the last cell in the row
+         */
+        void westRow(int y, long[] words);
+    }
+
+    private final int width;
+    private final int height;
+
+    public EllerMazeGenerator(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * generates all rows of walls of the maze in order of increasing y
+     * the north wall of row 0 and the south wall of the last row are emitted as closed walls,
+     * (except for the optional entry and exit openings)
+     * @param sink
+     * @param entryX    the x position of an opening in the north boundary of the maze, or -1 for none
+     * @param exitX     the x position of an opening in the south boundary of the maze, or -1 for none
+     */
+    public void generate(RowSink sink, int entryX, int exitX) {
+        Random randomizer = Maze.getRandomizer();
+        long[] northWords = new long[WallBitboard.numWords(this.width)];
+        long[] westWords = new long[WallBitboard.numWords(this.width + 1)];
+
+        // the set labels of all cells in the current row, with label values 0 <= label < width
+        int[] labels = new int[this.width];
+        // union-find parents of the labels, to join sets within the current row
+        int[] parents = new int[this.width];
+        // linked lists of the cells of each set, to choose the openings towards the next row
+        int[] firstCells = new int[this.width];
+        int[] nextCells = new int[this.width];
+        boolean[] labelInUse = new boolean[this.width];
+
+        for (int x = 0; x < this.width; x++) labels[x] = x;
+
+        // the north boundary of the maze
+        fillRow(northWords, this.width);
+        if (entryX >= 0) clearBit(northWords, entryX);
+        sink.northRow(0, northWords);
+
+        for (int y = 0; y < this.height; y++) {
+            boolean lastRow = (y == this.height - 1);
+            for (int label = 0; label < this.width; label++) parents[label] = label;
+
+            // randomly join adjacent cells of different sets within the row
+            // the last row must join all sets that are still separate
+            fillRow(westWords, this.width + 1);
+            for (int x = 1; x < this.width; x++) {
+                int left = find(parents, labels[x - 1]);
+                int right = find(parents, labels[x]);
+                if (left != right && (lastRow || randomizer.nextBoolean())) {
+                    clearBit(westWords, x);
+                    parents[right] = left;
+                }
+            }
+            sink.westRow(y, westWords);
+
+            for (int x = 0; x < this.width; x++) labels[x] = find(parents, labels[x]);
+
+            fillRow(northWords, this.width);
+            if (lastRow) {
+                // the south boundary of the maze
+                if (exitX >= 0) clearBit(northWords, exitX);
+                sink.northRow(y + 1, northWords);
+                break;
+            }
+
+            // collect the cells of each set, in order of increasing x
+            Arrays.fill(firstCells, -1);
+            for (int x = this.width - 1; x >= 0; x--) {
+                nextCells[x] = firstCells[labels[x]];
+                firstCells[labels[x]] = x;
+            }
+
+            // open at least one random south wall of every set
+            // cells below an opening continue the set, all other cells start a new set in the next row
+            Arrays.fill(labelInUse, false);
+            for (int x = 0; x < this.width; x++) {
+                int label = labels[x];
+                if (firstCells[label] != x) continue;
+                int numCells = 0;
+                int numOpened = 0;
+                for (int cell = x; cell >= 0; cell = nextCells[cell]) {
+                    numCells++;
+                    if (randomizer.nextBoolean()) {
+                        clearBit(northWords, cell);
+                        numOpened++;
+                    }
+                }
+                if (numOpened == 0) {
+                    int cell = x;
+                    for (int i = randomizer.nextInt(numCells); i > 0; i--) cell = nextCells[cell];
+                    clearBit(northWords, cell);
+                }
+                labelInUse[label] = true;
+            }
+            sink.northRow(y + 1, northWords);
+
+            int freeLabel = 0;
+            for (int x = 0; x < this.width; x++) {
+                if (getBit(northWords, x)) {
+                    while (labelInUse[freeLabel]) freeLabel++;
+                    labels[x] = freeLabel;
+                    labelInUse[freeLabel] = true;
+                }
+            }
+        }
+    }
+
+    private static int find(int[] parents, int label) {
+        while (parents[label] != label) {
+            parents[label] = parents[parents[label]];
+            label = parents[label];
+        }
+        return label;
+    }
+
+    private static void fillRow(long[] words, int numBits) {
+        for (int w = 0; w < words.length; w++) words[w] = WallBitboard.rowMask(w, numBits);
+    }
+
+    private static boolean getBit(long[] words, int bit) {
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static void clearBit(long[] words, int bit) {
+        words[bit >>> 6] &= ~(1L << bit);
+    }
+}
@@ -0,0 +1,126 @@
+package maze_escape;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ExitDistanceField {
+
+    /**
+     * The result of a single reverse search from a target (the exit of a maze) over all vertices of a JunctionGraph
+     * For every vertex it holds the weight of the shortest path towards the target
+     * and the next hop along that path, in primitive arrays indexed like the vertices of the graph.
+     * The shortest path from any vertex towards the target can be read off in O(path length)
+     * A field can be saved to and loaded from a file, to be reused by later runs on the same maze.
+     */
+    private static final int FILE_MAGIC = 0x45444631;   // "EDF1"
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final int targetCell;
+    private final int[] cells;          // cells[i] holds the cell number of vertex i, in increasing order
+    private final double[] distances;   // distances[i] holds the weight of the shortest path from vertex i to the target
+    private final int[] nextHops;       // nextHops[i] holds the next vertex from i towards the target, or -1 if unreachable
+
+    ExitDistanceField(int targetCell, int[] cells, double[] distances, int[] nextHops) {
+        this.targetCell = targetCell;
+        this.cells = cells;
+        this.distances = distances;
+        this.nextHops = nextHops;
+    }
+
+    public int getTargetCell() {
+        return this.targetCell;
+    }
+
+    public int getNumVertices() {
+        return this.cells.length;
+    }
+
+    /**
+     * checks whether the target can be reached from the given cell
+     * @param cell
+     * @return  false if the cell is not a vertex, or there is no path from the cell towards the target
+     */
+    public boolean isReachable(int cell) {
+        int vertex = Arrays.binarySearch(this.cells, cell);
+        return vertex >= 0 && this.nextHops[vertex] >= 0;
+    }
+
+    /**
+     * @param cell
+     * @return the weight of the shortest path from the given cell to the target,
+     * or Double.MAX_VALUE if the target cannot be reached from the cell
+     */
+    public double distanceFrom(int cell) {
+        int vertex = Arrays.binarySearch(this.cells, cell);
+        return vertex >= 0 ? this.distances[vertex] : Double.MAX_VALUE;
+    }
+
+    /**
+     * reads off the shortest path from the given cell towards the target by following the next hops
+     * @param cell
+     * @return the cell numbers of all vertices along the path, starting with the given cell and ending with the target
+     * or null if the target cannot be reached from the given cell
+     */
+    public int[] pathFrom(int cell) {
+        if (!this.isReachable(cell)) return null;
+
+        int vertex = Arrays.binarySearch(this.cells, cell);
+        int[] path = new int[16];
+        int length = 0;
+        while (true) {
+            if (length == path.length) path = Arrays.copyOf(path, 2 * length);
+            path[length++] = this.cells[vertex];
+            if (this.nextHops[vertex] == vertex) break;     // only the target refers to itself
+            vertex = this.nextHops[vertex];
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    /**
+     * writes the distance field into a binary file
+     * @param file
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(this.targetCell);
+            output.writeInt(this.cells.length);
+            for (int cell : this.cells) output.writeInt(cell);
+            for (double distance : this.distances) output.writeDouble(distance);
+            for (int nextHop : this.nextHops) output.writeInt(nextHop);
+        }
+    }
+
+    /**
+     * reads a distance field from a binary file that has been written by save()
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static ExitDistanceField load(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE))) {
+            if (input.readInt() != FILE_MAGIC) {
+                throw new IOException("File " + file + " does not contain an exit distance field");
+            }
+            int targetCell = input.readInt();
+            int numVertices = input.readInt();
+            int[] cells = new int[numVertices];
+            double[] distances = new double[numVertices];
+            int[] nextHops = new int[numVertices];
+            for (int i = 0; i < numVertices; i++) cells[i] = input.readInt();
+            for (int i = 0; i < numVertices; i++) distances[i] = input.readDouble();
+            for (int i = 0; i < numVertices; i++) nextHops[i] = input.readInt();
+            return new ExitDistanceField(targetCell, cells, distances, nextHops);
+        }
+    }
+}
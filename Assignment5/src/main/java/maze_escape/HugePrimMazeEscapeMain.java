@@ -1,5 +1,8 @@
 package maze_escape;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.function.BiFunction;
 
 public class HugePrimMazeEscapeMain {
@@ -9,10 +12,73 @@ public class HugePrimMazeEscapeMain {
     private static final int HEIGHT = WIDTH;
     private static final int REMOVE = 2 * WIDTH;
 
+    // the command line argument that builds a contraction hierarchy, if no prebuilt file of the maze can be found
+    private static final String BUILD_CONTRACTION_HIERARCHY = "--build-ch";
+
     public static void main(String[] args) {
         System.out.println("Welcome to the HvA Huge Maze Escape");
 
-        // generate a random maze
+        // load the maze from an earlier run, or generate a random maze
+        File mazeFile = new File(new File(HugePrimMazeEscapeMain.class.getResource("/").getPath()),
+                String.format("Prim-%d-%d-%d-%d.maze", WIDTH, HEIGHT, SEED, REMOVE));
+        Maze maze = loadOrGenerateMaze(mazeFile);
+
+        maze.setBitSetReachability(true);
+        System.out.printf("Maze-Graph contains %d connected vertices in %d cells\n",
+                maze.getAllVertices(maze.getStartNode()).size(), maze.getNumberOfCells());
+
+        doPathSearches(maze, "Breadth First Search", maze::breadthFirstSearch);
+        doPathSearches(maze, "Dijkstra Shortest Path", (v1,v2)-> maze.dijkstraShortestPath(v1,v2,maze::manhattanTime));
+        doPathSearches(maze, "AStar Shortest Path", (v1,v2)-> maze.aStarShortestPath(v1,v2,maze::manhattanTime));
+        doPathSearches(maze, "Bidirectional Breadth First Search", maze::bidirectionalBreadthFirstSearch);
+        doPathSearches(maze, "Bidirectional Dijkstra Shortest Path",
+                (v1,v2)-> maze.bidirectionalDijkstraShortestPath(v1,v2,maze::manhattanTime));
+        doPathSearches(maze, "Depth First Search", maze::depthFirstSearch);
+
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        System.out.printf("\nCompiled junction graph with %d vertices and %d edges\n",
+                junctionGraph.getNumVertices(), junctionGraph.getNumEdges());
+        doPathSearches(maze, "Compiled Breadth First Search", junctionGraph::breadthFirstSearch);
+        doPathSearches(maze, "Parallel Breadth First Search", maze::parallelBreadthFirstSearch);
+        doPathSearches(maze, "Compiled Dijkstra Shortest Path", junctionGraph::dijkstraShortestPath);
+        doPathSearches(maze, "Compiled AStar Shortest Path", junctionGraph::aStarShortestPath);
+        doCellPathSearches(maze, "Hierarchical Shortest Path", maze::hierarchicalShortestPath);
+        doCellPathSearches(maze, "Bit-Parallel Breadth First Search", maze::bitParallelBreadthFirstSearch);
+        doCellPathSearches(maze, "Jump Point Search", maze::jumpPointSearch);
+
+        // the contraction hierarchy is built offline, by a run with the argument BUILD_CONTRACTION_HIERARCHY
+        ContractionHierarchy hierarchy = loadOrBuildContractionHierarchy(junctionGraph,
+                new File(mazeFile.getPath() + ".ch"), Arrays.asList(args).contains(BUILD_CONTRACTION_HIERARCHY));
+        if (hierarchy != null) {
+            doPathSearches(maze, "Contraction Hierarchy Shortest Path", (v1,v2)-> {
+                IntPath path = hierarchy.shortestPath(v1, v2);
+                return path != null ? path.toGPath(junctionGraph) : null;
+            });
+        }
+
+        Maze pruned = maze.fillDeadEnds();
+        System.out.printf("\nFilled all dead ends of the maze\n");
+        doPathSearches(pruned, "Dead-End Filled Breadth First Search", pruned::breadthFirstSearch);
+        doPathSearches(pruned, "Dead-End Filled AStar Shortest Path",
+                (v1,v2)-> pruned.aStarShortestPath(v1,v2,pruned::manhattanTime));
+
+        // depict the search behaviour in a raster image with one pixel per cell
+        maze.pngDrawMap(String.format("CompiledAStarShortestPath-%d-%d.png", WIDTH, HEIGHT),
+                junctionGraph.aStarShortestPath(maze.getStartNode(), maze.getExitNode()));
+    }
+
+    private static Maze loadOrGenerateMaze(File mazeFile) {
+        try {
+            if (mazeFile.exists()) {
+                Maze maze = MazeFile.load(mazeFile);
+                System.out.printf("\nLoaded %dx%d Randomized-Prim-Maze(%d) with %d walls removed from %s\n",
+                        WIDTH, HEIGHT, SEED, REMOVE, mazeFile.getName());
+                return maze;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
         Maze.reSeedRandomizer(SEED);
         Maze maze = new Maze(WIDTH, HEIGHT);
         maze.generateRandomizedPrim();
@@ -20,24 +86,77 @@ public class HugePrimMazeEscapeMain {
         maze.removeRandomWalls(REMOVE);
         System.out.printf("\nCreated %dx%d Randomized-Prim-Maze(%d) with %d walls removed\n", WIDTH, HEIGHT, SEED, REMOVE);
 
-        doPathSearches(maze, "Breadth First Search", maze::breadthFirstSearch);
-        doPathSearches(maze, "Dijkstra Shortest Path", (v1,v2)-> maze.dijkstraShortestPath(v1,v2,maze::manhattanTime));
-        //doPathSearches(maze, "Depth First Search", maze::depthFirstSearch);
+        try {
+            MazeFile.save(maze, mazeFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return maze;
+    }
+
+    private static ContractionHierarchy loadOrBuildContractionHierarchy(JunctionGraph junctionGraph, File file,
+                                                                        boolean build) {
+        try {
+            if (file.exists()) {
+                ContractionHierarchy hierarchy = ContractionHierarchy.load(file);
+                System.out.printf("\nLoaded contraction hierarchy with %d edges and %d shortcuts from %s\n",
+                        hierarchy.getNumEdges(), hierarchy.getNumShortcuts(), file.getName());
+                return hierarchy;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (!build) {
+            System.out.printf("\nSkipped the contraction hierarchy, no prebuilt %s found; run with argument %s to build it\n",
+                    file.getName(), BUILD_CONTRACTION_HIERARCHY);
+            return null;
+        }
+
+        long started = System.nanoTime();
+        ContractionHierarchy hierarchy = junctionGraph.buildContractionHierarchy();
+        System.out.printf("\nBuilt contraction hierarchy with %d edges and %d shortcuts in %d ms\n",
+                hierarchy.getNumEdges(), hierarchy.getNumShortcuts(), (System.nanoTime() - started) / 1_000_000);
+
+        try {
+            hierarchy.save(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return hierarchy;
     }
 
     private static void doPathSearches(Maze maze, String title, BiFunction<Integer,Integer,Maze.GPath> searcher) {
+        doPathSearches(maze, title, searcher, false);
+    }
+
+    /**
+     * runs the escape and return searches of a search along the cells of the maze
+     * the weight of its paths is the number of steps between adjacent cells, which is reported as Steps
+     * and cannot be compared with the manhattanTime weights of the junction searches
+     */
+    private static void doCellPathSearches(Maze maze, String title, BiFunction<Integer,Integer,Maze.GPath> searcher) {
+        doPathSearches(maze, title, searcher, true);
+    }
+
+    private static void doPathSearches(Maze maze, String title, BiFunction<Integer,Integer,Maze.GPath> searcher,
+                                       boolean cellSteps) {
 
         System.out.printf("\nResults from '%s' in %dx%d maze from vertex '%d' to '%d':\n",
                 title, maze.getWidth(), maze.getHeight(), maze.getStartNode(), maze.getExitNode());
 
         // find the escape
         Maze.GPath path = searcher.apply(maze.getStartNode(), maze.getExitNode());
-        if (path.getTotalWeight() == 0.0) path.reCalculateTotalWeight(maze::manhattanTime);
-        System.out.println(title + ": " + path);
+        System.out.println(title + ": " + formatPath(maze, path, cellSteps));
 
         // find the return
         path = searcher.apply(maze.getExitNode(), maze.getStartNode());
+        System.out.println(title + " return: " + formatPath(maze, path, cellSteps));
+    }
+
+    private static String formatPath(Maze maze, Maze.GPath path, boolean cellSteps) {
+        if (path == null) return "null";
+        if (cellSteps) return path.toString().replaceFirst("^Weight=(\\d+)\\.00", "Steps=$1");
         if (path.getTotalWeight() == 0.0) path.reCalculateTotalWeight(maze::manhattanTime);
-        System.out.println(title + " return: " + path);
+        return path.toString();
     }
 }
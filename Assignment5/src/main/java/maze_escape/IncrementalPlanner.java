@@ -0,0 +1,279 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class IncrementalPlanner implements Maze.WallChangeListener {
+
+    /**
+     * Incremental shortest path planner between two fixed cells of a Maze, along Lifelong Planning A* (LPA*)
+     * see Koenig, Likhachev and Furcy, "Lifelong Planning A*", Artificial Intelligence 155 (2004)
+     *
+     * The planner searches the grid of cells, where every step between adjacent cells without a wall costs 1,
+     * guided by the manhattan distance towards the target cell.
+     * It keeps its search state between searches and listens to the wall changes of the maze:
+     * a toggled wall only changes the cost of the single step through that wall,
+     * so only the cells whose distance from the start is affected by that step are expanded again
+     * by the next call of shortestPath().
+     *
+     * For every cell it holds g, the distance from the start found so far, and rhs, the one-step lookahead
+     * of g from the neighbours of the cell. Cells with g != rhs are inconsistent and queued for expansion
+     * in order of the key [min(g,rhs) + h, min(g,rhs)]
+     */
+    private static final int INFINITE = Integer.MAX_VALUE;
+    private static final Maze.Direction[] DIRECTIONS = Maze.Direction.values();
+
+    private final Maze maze;
+    private final int width;
+    private final int startCell;
+    private final int targetCell;
+
+    private final int[] g;
+    private final int[] rhs;
+    private final KeyHeap inconsistentCells;
+    private BitSet expanded = new BitSet();     // the cells expanded since the previous search
+
+    /**
+     * creates a planner and registers it as a listener of the wall changes of the maze
+     * @param maze
+     * @param startCell
+     * @param targetCell
+     */
+    public IncrementalPlanner(Maze maze, int startCell, int targetCell) {
+        this.maze = maze;
+        this.width = maze.getWidth();
+        this.startCell = startCell;
+        this.targetCell = targetCell;
+        this.g = new int[maze.getNumberOfCells()];
+        this.rhs = new int[maze.getNumberOfCells()];
+        this.inconsistentCells = new KeyHeap(maze.getNumberOfCells());
+        this.initialize();
+        maze.addWallChangeListener(this);
+    }
+
+    /**
+     * stops listening to the wall changes of the maze
+     */
+    public void detach() {
+        this.maze.removeWallChangeListener(this);
+    }
+
+    private void initialize() {
+        Arrays.fill(this.g, INFINITE);
+        Arrays.fill(this.rhs, INFINITE);
+        this.inconsistentCells.clear();
+        this.rhs[this.startCell] = 0;
+        this.inconsistentCells.update(this.startCell, this.calculateKey(this.startCell));
+    }
+
+    @Override
+    public void wallChanged(int x, int y, Maze.Direction direction, boolean value) {
+        // the step through the wall is (un)blocked in both directions
+        this.updateCell(x + y * this.width);
+        int neighbour = this.maze.getDirectNeighbour(x, y, direction);
+        if (neighbour >= 0) this.updateCell(neighbour);
+    }
+
+    @Override
+    public void allWallsChanged() {
+        this.initialize();
+    }
+
+    /**
+     * finds the shortest path from the start cell to the target cell in the current lay-out of the maze
+     * repairing the search state of the previous call for all wall changes since then
+     * @return the path along all cells from start to target, with the number of steps as its total weight
+     * and the cells that have been expanded by this call as visited
+     * or null if the target cannot be reached from the start
+     */
+    public IntPath shortestPath() {
+        this.expanded = new BitSet();
+        this.computeShortestPath();
+        if (this.g[this.targetCell] == INFINITE) return null;
+
+        // walk back from the target along neighbours that are one step closer to the start
+        IntPath path = new IntPath();
+        path.visited = this.expanded;
+        path.totalWeight = this.g[this.targetCell];
+        int cell = this.targetCell;
+        path.vertices.add(cell);
+        while (cell != this.startCell) {
+            int x = cell % this.width, y = cell / this.width;
+            int previous = -1;
+            for (int d = 0; d < DIRECTIONS.length && previous < 0; d++) {
+                int neighbour = this.maze.adjacentCell(x, y, DIRECTIONS[d]);
+                if (neighbour >= 0 && this.g[neighbour] == this.g[cell] - 1) previous = neighbour;
+            }
+            if (previous < 0) {
+                throw new IllegalStateException("Search state is inconsistent at cell " + cell);
+            }
+            cell = previous;
+            path.vertices.add(cell);
+        }
+        path.vertices.reverse();
+        return path;
+    }
+
+    private void computeShortestPath() {
+        while (!this.inconsistentCells.isEmpty() &&
+                (this.inconsistentCells.peekMinKey() < this.calculateKey(this.targetCell) ||
+                        this.rhs[this.targetCell] != this.g[this.targetCell])) {
+            int cell = this.inconsistentCells.pollMin();
+            this.expanded.set(cell);
+            int x = cell % this.width, y = cell / this.width;
+            if (this.g[cell] > this.rhs[cell]) {
+                // the cell has become closer to the start, which may bring its neighbours closer too
+                this.g[cell] = this.rhs[cell];
+            } else {
+                // the cell has become further away, re-evaluate the cell itself and its neighbours
+                this.g[cell] = INFINITE;
+                this.updateCell(cell);
+            }
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int neighbour = this.maze.adjacentCell(x, y, DIRECTIONS[d]);
+                if (neighbour >= 0) this.updateCell(neighbour);
+            }
+        }
+    }
+
+    /**
+     * recalculates the lookahead distance of a cell from its neighbours
+     * and queues or dequeues the cell depending on its consistency
+     * @param cell
+     */
+    private void updateCell(int cell) {
+        if (cell != this.startCell) {
+            int x = cell % this.width, y = cell / this.width;
+            int lookahead = INFINITE;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int neighbour = this.maze.adjacentCell(x, y, DIRECTIONS[d]);
+                if (neighbour >= 0 && this.g[neighbour] != INFINITE) {
+                    lookahead = Math.min(lookahead, this.g[neighbour] + 1);
+                }
+            }
+            this.rhs[cell] = lookahead;
+        }
+        if (this.g[cell] != this.rhs[cell]) {
+            this.inconsistentCells.update(cell, this.calculateKey(cell));
+        } else {
+            this.inconsistentCells.remove(cell);
+        }
+    }
+
+    /**
+     * packs the lexicographic key [min(g,rhs) + h, min(g,rhs)] of a cell into a single long
+     * @param cell
+     * @return the key, or Long.MAX_VALUE if the cell has not been reached
+     */
+    private long calculateKey(int cell) {
+        int distance = Math.min(this.g[cell], this.rhs[cell]);
+        if (distance == INFINITE) return Long.MAX_VALUE;
+        long estimate = (long) distance + Math.abs(cell % this.width - this.targetCell % this.width) +
+                Math.abs(cell / this.width - this.targetCell / this.width);
+        return (estimate << 31) | distance;
+    }
+
+    /**
+     * binary min-heap of cells with a long key per queued cell
+     * keys can be both increased and decreased, and cells can be removed from anywhere in the heap
+     * the heap arrays grow with the number of queued cells, only the positions are allocated for all cells
+     */
+    private static class KeyHeap {
+        private static final int NOT_QUEUED = -1;
+
+        private int[] heap = new int[16];
+        private long[] keys = new long[16];    // keys[i] holds the key of the cell at heap position i
+        private final int[] positions;          // positions[cell] holds the heap position of cell, or NOT_QUEUED
+        private int size = 0;
+
+        private KeyHeap(int numCells) {
+            this.positions = new int[numCells];
+            Arrays.fill(this.positions, NOT_QUEUED);
+        }
+
+        private boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        private long peekMinKey() {
+            return this.keys[0];
+        }
+
+        private int pollMin() {
+            int minCell = this.heap[0];
+            this.remove(minCell);
+            return minCell;
+        }
+
+        private void clear() {
+            for (int i = 0; i < this.size; i++) {
+                this.positions[this.heap[i]] = NOT_QUEUED;
+            }
+            this.size = 0;
+        }
+
+        /**
+         * inserts the cell, or changes its key if it has been queued already
+         */
+        private void update(int cell, long key) {
+            int position = this.positions[cell];
+            if (position == NOT_QUEUED) {
+                if (this.size == this.heap.length) {
+                    this.heap = Arrays.copyOf(this.heap, 2 * this.size);
+                    this.keys = Arrays.copyOf(this.keys, 2 * this.size);
+                }
+                position = this.size++;
+                this.heap[position] = cell;
+                this.positions[cell] = position;
+            }
+            this.keys[position] = key;
+            this.siftDown(this.siftUp(position));
+        }
+
+        private void remove(int cell) {
+            int position = this.positions[cell];
+            if (position == NOT_QUEUED) return;
+            this.positions[cell] = NOT_QUEUED;
+            this.size--;
+            if (position < this.size) {
+                // move the last cell into the gap, and restore the heap order in either direction
+                this.heap[position] = this.heap[this.size];
+                this.keys[position] = this.keys[this.size];
+                this.positions[this.heap[position]] = position;
+                this.siftDown(this.siftUp(position));
+            }
+        }
+
+        private int siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (this.keys[parent] <= this.keys[position]) break;
+                this.swap(position, parent);
+                position = parent;
+            }
+            return position;
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= this.size) return;
+                if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) child++;
+                if (this.keys[position] <= this.keys[child]) return;
+                this.swap(position, child);
+                position = child;
+            }
+        }
+
+        private void swap(int position1, int position2) {
+            int cell = this.heap[position1];
+            long key = this.keys[position1];
+            this.heap[position1] = this.heap[position2];
+            this.keys[position1] = this.keys[position2];
+            this.heap[position2] = cell;
+            this.keys[position2] = key;
+            this.positions[this.heap[position1]] = position1;
+            this.positions[this.heap[position2]] = position2;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class IndexedMinHeap {
+
+    /**
+     * Binary min-heap of integer ids with a priority (key) per id.
+     * Every id tracks its current position in the heap, such that the key of an id that is
+     * already queued can be decreased in O(log n) without searching the heap for it.
+     * This is the decrease-key operation needed by Dijkstra-like searches.
+     *
+     * ids must be non-negative; the capacity grows automatically with the highest id used.
+     */
+    private static final int NOT_QUEUED = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] heap;         // heap[i] holds the id at heap position i
+    private int[] positions;    // positions[id] holds the heap position of id, or NOT_QUEUED
+    private double[] keys;      // keys[id] holds the current priority of id
+    private int size = 0;
+
+    public IndexedMinHeap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public IndexedMinHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(this.positions, NOT_QUEUED);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * checks whether the given id is currently queued in the heap
+     * @param id
+     * @return
+     */
+    public boolean contains(int id) {
+        return id < this.positions.length && this.positions[id] != NOT_QUEUED;
+    }
+
+    /**
+     * retrieves the current key of a queued id
+     * @param id
+     * @return
+     */
+    public double keyOf(int id) {
+        return this.keys[id];
+    }
+
+    /**
+     * adds an id which is not queued yet with the given key
+     * @param id
+     * @param key
+     */
+    public void insert(int id, double key) {
+        if (this.contains(id)) {
+            throw new IllegalArgumentException("id " + id + " is already queued");
+        }
+        this.ensureCapacity(id + 1);
+        this.keys[id] = key;
+        this.heap[this.size] = id;
+        this.positions[id] = this.size;
+        this.size++;
+        this.siftUp(this.size - 1);
+    }
+
+    /**
+     * lowers the key of an id which is already queued
+     * @param id
+     * @param key   the new key, which shall not exceed the current key of the id
+     */
+    public void decreaseKey(int id, double key) {
+        if (!this.contains(id)) {
+            throw new IllegalArgumentException("id " + id + " is not queued");
+        }
+        this.keys[id] = key;
+        this.siftUp(this.positions[id]);
+    }
+
+    /**
+     * inserts the id if it is not queued yet, or lowers its key if the given key improves on it
+     * @param id
+     * @param key
+     * @return  true if the heap has been changed
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        if (!this.contains(id)) {
+            this.insert(id, key);
+            return true;
+        }
+        if (key < this.keys[id]) {
+            this.decreaseKey(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * retrieves the smallest key in the heap without removing its id
+     * @return
+     */
+    public double peekMinKey() {
+        if (this.size == 0) throw new NoSuchElementException("heap is empty");
+        return this.keys[this.heap[0]];
+    }
+
+    /**
+     * removes and returns the id with the smallest key from the heap
+     * @return
+     */
+    public int pollMin() {
+        if (this.size == 0) throw new NoSuchElementException("heap is empty");
+        int minId = this.heap[0];
+        this.size--;
+        if (this.size > 0) {
+            this.heap[0] = this.heap[this.size];
+            this.positions[this.heap[0]] = 0;
+            this.siftDown(0);
+        }
+        this.positions[minId] = NOT_QUEUED;
+        return minId;
+    }
+
+    /**
+     * removes all ids from the heap
+     * only the positions of the queued ids are reset, such that the heap can be reused cheaply
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = NOT_QUEUED;
+        }
+        this.size = 0;
+    }
+
+    private void siftUp(int position) {
+        int id = this.heap[position];
+        double key = this.keys[id];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parentId = this.heap[parentPosition];
+            if (key >= this.keys[parentId]) break;
+            // move the parent down into the hole
+            this.heap[position] = parentId;
+            this.positions[parentId] = position;
+            position = parentPosition;
+        }
+        this.heap[position] = id;
+        this.positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = this.heap[position];
+        double key = this.keys[id];
+        int half = this.size >>> 1;
+        while (position < half) {
+            // find the smallest child
+            int childPosition = 2 * position + 1;
+            int childId = this.heap[childPosition];
+            if (childPosition + 1 < this.size && this.keys[this.heap[childPosition + 1]] < this.keys[childId]) {
+                childPosition++;
+                childId = this.heap[childPosition];
+            }
+            if (key <= this.keys[childId]) break;
+            // move the child up into the hole
+            this.heap[position] = childId;
+            this.positions[childId] = position;
+            position = childPosition;
+        }
+        this.heap[position] = id;
+        this.positions[id] = position;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.positions.length) return;
+        int newCapacity = Math.max(capacity, this.positions.length + (this.positions.length >> 1));
+        int oldCapacity = this.positions.length;
+        this.heap = Arrays.copyOf(this.heap, newCapacity);
+        this.keys = Arrays.copyOf(this.keys, newCapacity);
+        this.positions = Arrays.copyOf(this.positions, newCapacity);
+        Arrays.fill(this.positions, oldCapacity, newCapacity, NOT_QUEUED);
+    }
+}
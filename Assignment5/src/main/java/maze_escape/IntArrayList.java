@@ -0,0 +1,84 @@
+package maze_escape;
+
+import java.util.Arrays;
+
+public class IntArrayList {
+
+    /**
+     * A growable list of primitive int values, backed by an int[] array
+     * It avoids the boxed Integer per element of a List<Integer>,
+     * which makes it the compact choice for long sequences of cell/vertex numbers in a Maze.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] elements;
+    private int size;
+
+    public IntArrayList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public IntArrayList(int capacity) {
+        this.elements = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int element) {
+        if (this.size == this.elements.length) {
+            this.elements = Arrays.copyOf(this.elements, 2 * this.size);
+        }
+        this.elements[this.size++] = element;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds of a list of size " + this.size);
+        }
+        return this.elements[index];
+    }
+
+    /**
+     * removes and returns the last element, such that the list can be used as a stack
+     * @return
+     */
+    public int removeLast() {
+        if (this.size == 0) {
+            throw new IndexOutOfBoundsException("List is empty");
+        }
+        return this.elements[--this.size];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * reverses the order of the elements in place
+     */
+    public void reverse() {
+        for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+            int element = this.elements[i];
+            this.elements[i] = this.elements[j];
+            this.elements[j] = element;
+        }
+    }
+
+    /**
+     * @return a copy of the elements in an array of exactly size() elements
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(this.elements, this.size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.toArray());
+    }
+}
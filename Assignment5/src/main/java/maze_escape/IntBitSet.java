@@ -0,0 +1,118 @@
+package maze_escape;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class IntBitSet extends AbstractSet<Integer> {
+
+    /**
+     * A Set of non-negative integers that is backed by a java.util.BitSet
+     * It uses one bit per possible element, instead of a boxed Integer and a hash table entry per actual element
+     * which makes it the compact choice for sets of cell/vertex numbers in a Maze.
+     * Iteration follows the increasing order of the elements.
+     */
+    private final BitSet bits;
+    private int size;
+
+    public IntBitSet() {
+        this(new BitSet());
+    }
+
+    /**
+     * @param capacity  the expected upper bound (exclusive) of the elements in the set
+     */
+    public IntBitSet(int capacity) {
+        this(new BitSet(capacity));
+    }
+
+    /**
+     * wraps the given bits as a set without copying them
+     * later changes to the bits by others are not reflected in the size of this set
+     * @param bits
+     */
+    public IntBitSet(BitSet bits) {
+        this.bits = bits;
+        this.size = bits.cardinality();
+    }
+
+    public boolean contains(int element) {
+        return element >= 0 && this.bits.get(element);
+    }
+
+    public boolean add(int element) {
+        if (this.bits.get(element)) return false;
+        this.bits.set(element);
+        this.size++;
+        return true;
+    }
+
+    public boolean remove(int element) {
+        if (!this.contains(element)) return false;
+        this.bits.clear(element);
+        this.size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && this.contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public boolean add(Integer element) {
+        return this.add(element.intValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && this.remove(((Integer) o).intValue());
+    }
+
+    @Override
+    public void clear() {
+        this.bits.clear();
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the backing bits of this set
+     */
+    public BitSet getBits() {
+        return this.bits;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int next = IntBitSet.this.bits.nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (this.next < 0) throw new NoSuchElementException();
+                this.last = this.next;
+                this.next = IntBitSet.this.bits.nextSetBit(this.next + 1);
+                return this.last;
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) throw new IllegalStateException();
+                IntBitSet.this.remove(this.last);
+                this.last = -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package maze_escape;
+
+@FunctionalInterface
+public interface IntIntToDoubleFunction {
+
+    /**
+     * A function of two primitive int arguments that produces a primitive double result,
+     * like a ToDoubleBiFunction<Integer, Integer> without boxing its arguments
+     * e.g. the weight of the passage between two cells of a Maze, see Maze.manhattanTime()
+     * @param value1
+     * @param value2
+     * @return
+     */
+    double applyAsDouble(int value1, int value2);
+}
@@ -0,0 +1,68 @@
+package maze_escape;
+
+import java.util.BitSet;
+
+public class IntPath {
+
+    /**
+     * The result of a search on a graph with integer vertices, like a GPath of AbstractGraph<Integer>,
+     * but with primitive representations throughout:
+     * the vertices of the path in an IntArrayList, the visited vertices in a BitSet and a primitive total weight.
+     * This avoids a boxed Integer and a linked list node or hash table entry per vertex in huge searches.
+     * toGPath() provides a cheap adapter for callers of the generic GPath, like Maze.svgDrawMap().
+     */
+    private static final int DISPLAY_CUT = 10;
+
+    // package-private, such that search implementations in this package can populate their results
+    final IntArrayList vertices = new IntArrayList();
+    double totalWeight = 0.0;
+    BitSet visited = new BitSet();
+
+    public IntArrayList getVertices() {
+        return this.vertices;
+    }
+
+    public double getTotalWeight() {
+        return this.totalWeight;
+    }
+
+    public BitSet getVisited() {
+        return this.visited;
+    }
+
+    /**
+     * converts this path into a GPath of the given graph
+     * the vertices are copied into the GPath, the visited vertices are shared with the GPath by an IntBitSet view
+     * @param graph
+     * @return
+     */
+    public AbstractGraph<Integer>.GPath toGPath(AbstractGraph<Integer> graph) {
+        AbstractGraph<Integer>.GPath path = graph.new GPath();
+        for (int i = 0; i < this.vertices.size(); i++) {
+            path.vertices.add(this.vertices.get(i));
+        }
+        path.totalWeight = this.totalWeight;
+        path.visited = new IntBitSet(this.visited);
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(
+                String.format("Weight=%.2f Length=%d visited=%d (",
+                        this.totalWeight, this.vertices.size(), this.visited.cardinality()));
+        String separator = "";
+        final int tailCut = this.vertices.size() - 1 - DISPLAY_CUT;
+        for (int count = 0; count < this.vertices.size(); count++) {
+            // limit the length of the text representation for long paths.
+            if (count < DISPLAY_CUT || count > tailCut) {
+                sb.append(separator).append(this.vertices.get(count));
+                separator = ", ";
+            } else if (count == DISPLAY_CUT) {
+                sb.append(separator + "...");
+            }
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,230 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class JumpPointSearch {
+
+    /**
+     * Jump Point Search (JPS) over the cell grid of a Maze, for uniform cost steps between adjacent cells
+     * see Harabor and Grastien, "Online Graph Pruning for Pathfinding on Grid Maps" (2011)
+     * adapted to 4-connected moves and to walls between cells instead of blocked cells.
+     *
+     * Open areas of a maze hold many symmetric shortest paths, which only differ in the order of their moves.
+     * JPS only follows the canonical ones, which take their vertical moves first:
+     * a horizontal move may only be followed by a vertical move if that turn is 'forced',
+     * i.e. the vertical move first and then the horizontal move is blocked by a wall.
+     * Runs of moves in one direction are scanned without queueing their cells ('jumps'),
+     * until a jump point is found, from where the canonical paths may turn:
+     *  - a horizontal jump stops at the target, or at a cell with a forced vertical neighbour
+     *  - a vertical jump stops at the target, or at a cell from where a horizontal jump finds a jump point
+     * A* with the manhattanDistance heuristic only queues the jump points.
+     *
+     * A jump point that is reached by multiple jumps of the same shortest distance,
+     * is expanded in the directions of all of them, which keeps the search exact under ties.
+     */
+    private static final int NONE = -1;
+    private static final int NORTH = Maze.Direction.NORTH.ordinal();
+    private static final int EAST = Maze.Direction.EAST.ordinal();
+    private static final int SOUTH = Maze.Direction.SOUTH.ordinal();
+    private static final int WEST = Maze.Direction.WEST.ordinal();
+    private static final Maze.Direction[] DIRECTIONS = Maze.Direction.values();
+    private static final int ALL_DIRECTIONS = 0b1111;
+
+    private final Maze maze;
+    private final int width;
+
+    // search state per cell, only valid if the stamp of the cell matches the generation of the current search
+    private final int[] stamps;
+    private final int[] distances;      // the number of steps from the start of the search
+    private final int[] parents;        // the previous jump point on the shortest path from the start
+    private final byte[] arrivals;      // the directions of the jumps that reached the cell at its distance
+    private final byte[] expanded;      // the directions in which the cell has been expanded already
+    private final IndexedMinHeap queue = new IndexedMinHeap();
+    private BitSet visited = new BitSet();
+    private int generation = 0;
+    private int targetCell;
+
+    public JumpPointSearch(Maze maze) {
+        this.maze = maze;
+        this.width = maze.getWidth();
+        int numCells = maze.getNumberOfCells();
+        this.stamps = new int[numCells];
+        this.distances = new int[numCells];
+        this.parents = new int[numCells];
+        this.arrivals = new byte[numCells];
+        this.expanded = new byte[numCells];
+    }
+
+    /**
+     * calculates a shortest path from the start cell to the target cell along the cells of the maze
+     * @param startCell
+     * @param targetCell
+     * @return the path including every cell along the way, with the number of steps as its total weight
+     * and the expanded jump points as its visited vertices,
+     * or null if the target cannot be reached
+     */
+    public IntPath shortestPath(int startCell, int targetCell) {
+        this.restart(startCell, targetCell);
+
+        while (!this.queue.isEmpty()) {
+            int cell = this.queue.pollMin();
+            this.visited.set(cell);
+            if (cell == targetCell) return this.buildPath(startCell, targetCell);
+
+            int x = cell % this.width, y = cell / this.width;
+            int directions = this.successorDirections(x, y, this.arrivals[cell]) & ~this.expanded[cell];
+            this.expanded[cell] |= directions;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if ((directions & (1 << direction)) == 0) continue;
+                int jumpPoint = this.isHorizontal(direction) ?
+                        this.jumpHorizontal(x, y, direction) : this.jumpVertical(x, y, direction);
+                if (jumpPoint != NONE) {
+                    this.reach(jumpPoint, cell, this.distances[cell] + this.stepsBetween(cell, jumpPoint), direction);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void restart(int startCell, int targetCell) {
+        this.queue.clear();
+        this.visited = new BitSet();
+        if (++this.generation == Integer.MAX_VALUE) {
+            // restart the stamps, before the generations would wrap around
+            Arrays.fill(this.stamps, 0);
+            this.generation = 1;
+        }
+        this.targetCell = targetCell;
+        this.stamps[startCell] = this.generation;
+        this.distances[startCell] = 0;
+        this.parents[startCell] = startCell;
+        this.arrivals[startCell] = ALL_DIRECTIONS;
+        this.expanded[startCell] = 0;
+        this.queue.insert(startCell, this.stepsBetween(startCell, targetCell));
+    }
+
+    /**
+     * registers a jump from the cell 'from' in the given direction that reached a jump point at the given distance
+     */
+    private void reach(int jumpPoint, int from, int distance, int direction) {
+        byte arrival = (byte) (1 << direction);
+        double key = distance + this.stepsBetween(jumpPoint, this.targetCell);
+        if (this.stamps[jumpPoint] != this.generation || distance < this.distances[jumpPoint]) {
+            this.stamps[jumpPoint] = this.generation;
+            this.distances[jumpPoint] = distance;
+            this.parents[jumpPoint] = from;
+            this.arrivals[jumpPoint] = arrival;
+            this.expanded[jumpPoint] = 0;
+            this.queue.insertOrDecrease(jumpPoint, key);
+        } else if (distance == this.distances[jumpPoint] && (this.arrivals[jumpPoint] & arrival) == 0) {
+            // an alternative shortest path may need to continue in other directions
+            this.arrivals[jumpPoint] |= arrival;
+            if (!this.queue.contains(jumpPoint)) this.queue.insert(jumpPoint, key);
+        }
+    }
+
+    /**
+     * @return the directions in which canonical paths continue from cell(x,y), given the directions of arrival
+     * a vertical arrival continues vertically or turns horizontally
+     * a horizontal arrival continues horizontally or turns into forced vertical neighbours only
+     */
+    private int successorDirections(int x, int y, int arrivals) {
+        if (arrivals == ALL_DIRECTIONS) return ALL_DIRECTIONS;    // the start of the search
+        int directions = 0;
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            if ((arrivals & (1 << direction)) == 0) continue;
+            directions |= 1 << direction;
+            if (this.isHorizontal(direction)) {
+                if (this.isForced(x, y, direction, NORTH)) directions |= 1 << NORTH;
+                if (this.isForced(x, y, direction, SOUTH)) directions |= 1 << SOUTH;
+            } else {
+                directions |= (1 << EAST) | (1 << WEST);
+            }
+        }
+        return directions;
+    }
+
+    /**
+     * scans along the row from cell(x,y) in the given horizontal direction
+     * @return the first jump point along the row, or NONE if a wall is hit first
+     */
+    private int jumpHorizontal(int x, int y, int direction) {
+        for (int cell = this.nextCell(x, y, direction); cell != NONE; cell = this.nextCell(x, y, direction)) {
+            x = cell % this.width;
+            if (cell == this.targetCell ||
+                    this.isForced(x, y, direction, NORTH) || this.isForced(x, y, direction, SOUTH)) {
+                return cell;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * scans along the column from cell(x,y) in the given vertical direction,
+     * with horizontal scans to both sides at every cell
+     * @return the first jump point along the column, or NONE if a wall is hit first
+     */
+    private int jumpVertical(int x, int y, int direction) {
+        for (int cell = this.nextCell(x, y, direction); cell != NONE; cell = this.nextCell(x, y, direction)) {
+            y = cell / this.width;
+            if (cell == this.targetCell ||
+                    this.jumpHorizontal(x, y, EAST) != NONE || this.jumpHorizontal(x, y, WEST) != NONE) {
+                return cell;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * checks whether a canonical path that arrives at cell(x,y) in the given horizontal direction
+     * must turn into the given vertical direction here, because it cannot have turned one cell earlier
+     */
+    private boolean isForced(int x, int y, int horizontal, int vertical) {
+        if (this.nextCell(x, y, vertical) == NONE) return false;
+        // the path arrived from the previous cell, so that lies within the maze
+        int previous = this.maze.getDirectNeighbour(x, y, DIRECTIONS[(horizontal + 2) % DIRECTIONS.length]);
+        int previousX = previous % this.width;
+        int turn = this.nextCell(previousX, y, vertical);
+        return turn == NONE || this.nextCell(previousX, turn / this.width, horizontal) == NONE;
+    }
+
+    /**
+     * @return the direct neighbour of cell(x,y) in the given direction, if it can be entered without passing a wall
+     * or NONE otherwise, which includes moves towards the outside of the maze
+     */
+    private int nextCell(int x, int y, int direction) {
+        return this.maze.adjacentCell(x, y, DIRECTIONS[direction]);
+    }
+
+    private boolean isHorizontal(int direction) {
+        return direction == EAST || direction == WEST;
+    }
+
+    private int stepsBetween(int cell1, int cell2) {
+        return Math.abs(cell1 % this.width - cell2 % this.width) + Math.abs(cell1 / this.width - cell2 / this.width);
+    }
+
+    /**
+     * follows the parents back from the target to the start,
+     * and fills in all cells along the straight runs between successive jump points
+     */
+    private IntPath buildPath(int startCell, int targetCell) {
+        IntPath path = new IntPath();
+        path.totalWeight = this.distances[targetCell];
+        path.visited = this.visited;
+
+        path.vertices.add(targetCell);
+        for (int cell = targetCell; cell != startCell; ) {
+            int parent = this.parents[cell];
+            int step = parent / this.width == cell / this.width ? Integer.signum(parent - cell) :
+                    Integer.signum(parent - cell) * this.width;
+            while (cell != parent) {
+                cell += step;
+                path.vertices.add(cell);
+            }
+        }
+        path.vertices.reverse();
+        return path;
+    }
+}
@@ -0,0 +1,679 @@
+package maze_escape;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class JunctionGraph extends AbstractGraph<Integer> {
+
+    /**
+     * Immutable compressed-sparse-row (CSR) representation of the graph abstraction of a Maze
+     * It is compiled once by Maze.compileJunctionGraph() such that searches do not need to walk
+     * the passages of the maze cell by cell again and again.
+     *
+     * Only the junctions and dead-ends of the maze (and its entry and exit) are vertices,
+     * the passages between them are the edges.
+     * Vertices are identified by their cell number in the maze, like in Maze.getNeighbours()
+     * and internally by their index in the sorted array of cells.
+     * The edges of the vertex at index i are found at positions offsets[i] upto offsets[i+1] of targets and weights
+     * The breadth-first, dijkstra and A* searches of this class run on these primitive arrays
+     * without any allocation per visited edge.
+     * Their int-specialised entry points return an IntPath, the GPath variants adapt that result.
+     */
+    private static final int NONE = -1;
+    private static final int PARALLEL_GRAIN = 1024;     // frontier range size that is expanded by a single task
+
+    private final int width;        // width of the maze, to calculate the coordinates of a cell
+    private final int[] cells;      // cells[i] holds the cell number of vertex i, in increasing order
+    private final int[] offsets;    // the edges of vertex i are found at offsets[i] <= e < offsets[i+1]
+    private final int[] targets;    // targets[e] holds the vertex index at the end of edge e
+    private final double[] weights; // weights[e] holds the pre-calculated weight of edge e
+
+    // the incoming edges of every vertex, transposed from the outgoing edges at first use
+    private volatile IncomingEdges incomingEdges;
+
+    JunctionGraph(int width, int[] cells, int[] offsets, int[] targets, double[] weights) {
+        this.width = width;
+        this.cells = cells;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public int getNumVertices() {
+        return this.cells.length;
+    }
+
+    public int getNumEdges() {
+        return this.targets.length;
+    }
+
+    /**
+     * finds the vertex index of the given cell number
+     * @param cell
+     * @return  the index of the vertex, or -1 if the cell is not a vertex of this graph
+     */
+    public int indexOf(int cell) {
+        int index = Arrays.binarySearch(this.cells, cell);
+        return index >= 0 ? index : NONE;
+    }
+
+    /**
+     * @param index
+     * @return the cell number of the vertex with given index
+     */
+    public int cellOf(int index) {
+        return this.cells[index];
+    }
+
+    /**
+     * retrieves the pre-calculated weight of the edge between two vertices
+     * e.g. junctionGraph::weightOf can be passed as the weightMapper of AbstractGraph searches
+     * or of GPath.reCalculateTotalWeight(), instead of recalculating the weight of every passage
+     * @param fromVertex
+     * @param toVertex
+     * @return  the weight of the edge from fromVertex to toVertex
+     */
+    public double weightOf(int fromVertex, int toVertex) {
+        int from = this.indexOf(fromVertex);
+        if (from >= 0) {
+            for (int e = this.offsets[from]; e < this.offsets[from + 1]; e++) {
+                if (this.cells[this.targets[e]] == toVertex) return this.weights[e];
+            }
+        }
+        throw new IllegalArgumentException("No edge from vertex " + fromVertex + " to " + toVertex);
+    }
+
+    @Override
+    public Set<Integer> getNeighbours(Integer fromVertex) {
+        Set<Integer> neighbours = new HashSet<>();
+        int from = this.indexOf(fromVertex);
+        if (from < 0) return neighbours;
+        for (int e = this.offsets[from]; e < this.offsets[from + 1]; e++) {
+            neighbours.add(this.cells[this.targets[e]]);
+        }
+        return neighbours;
+    }
+
+    /**
+     * retrieves the vertices with an edge towards the given toVertex, from the transposed edges of this graph
+     * the passages of a maze can be one-way, e.g. from a pass-through entry towards the end of its passage,
+     * so the predecessors of a vertex can differ from its neighbours
+     * @param toVertex
+     * @return
+     */
+    @Override
+    public Set<Integer> getPredecessors(Integer toVertex) {
+        Set<Integer> predecessors = new HashSet<>();
+        int to = this.indexOf(toVertex);
+        if (to < 0) return predecessors;
+        IncomingEdges incoming = this.incomingEdges();
+        for (int e = incoming.offsets[to]; e < incoming.offsets[to + 1]; e++) {
+            predecessors.add(this.cells[incoming.sources[e]]);
+        }
+        return predecessors;
+    }
+
+    // provides the incoming edges of all vertices, concurrent first callers may each transpose the edges once
+    private IncomingEdges incomingEdges() {
+        IncomingEdges incoming = this.incomingEdges;
+        if (incoming == null) {
+            incoming = new IncomingEdges(this.offsets, this.targets, this.weights);
+            this.incomingEdges = incoming;
+        }
+        return incoming;
+    }
+
+    /**
+     * the transposed compressed rows of the edges of a graph:
+     * the edges into vertex i are found at positions offsets[i] upto offsets[i+1] of sources and weights
+     */
+    private static class IncomingEdges {
+        private final int[] offsets;
+        private final int[] sources;    // sources[e] holds the vertex index at the start of incoming edge e
+        private final double[] weights; // weights[e] holds the weight of incoming edge e
+
+        private IncomingEdges(int[] outOffsets, int[] targets, double[] outWeights) {
+            int numVertices = outOffsets.length - 1;
+            this.offsets = new int[numVertices + 1];
+            this.sources = new int[targets.length];
+            this.weights = new double[targets.length];
+
+            // count the incoming edges per vertex, and accumulate the counts into the offsets of their rows
+            for (int target : targets) this.offsets[target + 1]++;
+            for (int i = 0; i < numVertices; i++) this.offsets[i + 1] += this.offsets[i];
+
+            // fill the rows in order of the source vertices
+            int[] positions = Arrays.copyOf(this.offsets, numVertices);
+            for (int from = 0; from < numVertices; from++) {
+                for (int e = outOffsets[from]; e < outOffsets[from + 1]; e++) {
+                    int position = positions[targets[e]]++;
+                    this.sources[position] = from;
+                    this.weights[position] = outWeights[e];
+                }
+            }
+        }
+    }
+
+    /**
+     * Uses a breadth-first search on the primitive arrays of this graph to find a path
+     * from the startVertex to targetVertex with the least number of passages
+     * All vertices that are being visited by the search are registered in path.visited
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    @Override
+    public GPath breadthFirstSearch(Integer startVertex, Integer targetVertex) {
+        if (startVertex == null || targetVertex == null) return null;
+        return this.toGPath(this.intBreadthFirstSearch(startVertex, targetVertex));
+    }
+
+    /**
+     * Uses a breadth-first search on the primitive arrays of this graph to find a path
+     * from the startVertex to targetVertex with the least number of passages
+     * All vertices that are being visited by the search are registered in path.visited
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public IntPath intBreadthFirstSearch(int startVertex, int targetVertex) {
+        int start = this.indexOf(startVertex);
+        int target = this.indexOf(targetVertex);
+        if (start < 0 || target < 0) return null;
+
+        IntPath path = new IntPath();
+        BitSet visited = this.newCellBits();
+        path.visited = visited;
+        visited.set(this.cells[start]);
+        if (start == target) {
+            path.vertices.add(this.cells[start]);
+            return path;
+        }
+
+        // visitedFrom[v] holds the predecessor of v in the search tree, or NONE if v has not been visited
+        int[] visitedFrom = new int[this.cells.length];
+        Arrays.fill(visitedFrom, NONE);
+        int[] fifoQueue = new int[this.cells.length];
+        int head = 0, tail = 0;
+
+        visitedFrom[start] = start;
+        fifoQueue[tail++] = start;
+        while (head < tail) {
+            int current = fifoQueue[head++];
+            for (int e = this.offsets[current]; e < this.offsets[current + 1]; e++) {
+                int neighbour = this.targets[e];
+                if (visitedFrom[neighbour] != NONE) continue;
+                visitedFrom[neighbour] = current;
+                visited.set(this.cells[neighbour]);
+                if (neighbour == target) {
+                    this.buildPath(path, visitedFrom, start, target);
+                    return path;
+                }
+                fifoQueue[tail++] = neighbour;
+            }
+        }
+
+        return null;    // No path found from start to target
+    }
+
+    /**
+     * Uses a level-synchronous parallel breadth-first search on the common ForkJoinPool
+     * to find a path from the startVertex to targetVertex with the least number of passages
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath parallelBreadthFirstSearch(Integer startVertex, Integer targetVertex) {
+        return this.parallelBreadthFirstSearch(startVertex, targetVertex, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Uses a level-synchronous parallel breadth-first search to find a path
+     * from the startVertex to targetVertex with the least number of passages
+     * The vertices of every level (the frontier) are expanded in parallel by the given pool.
+     * Vertices are claimed by an atomic compare-and-set on a bitset of visited vertices,
+     * such that exactly one task registers itself as the parent of every vertex
+     * and adds the vertex to the frontier of the next level.
+     * All vertices that are being visited by the search are registered in path.visited
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @param pool          the pool of worker threads to expand the frontier
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath parallelBreadthFirstSearch(Integer startVertex, Integer targetVertex, ForkJoinPool pool) {
+        if (startVertex == null || targetVertex == null) return null;
+        return this.toGPath(this.intParallelBreadthFirstSearch(startVertex, targetVertex, pool));
+    }
+
+    /**
+     * Uses a level-synchronous parallel breadth-first search to find a path
+     * from the startVertex to targetVertex with the least number of passages
+     * see parallelBreadthFirstSearch()
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @param pool          the pool of worker threads to expand the frontier
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public IntPath intParallelBreadthFirstSearch(int startVertex, int targetVertex, ForkJoinPool pool) {
+        int start = this.indexOf(startVertex);
+        int target = this.indexOf(targetVertex);
+        if (start < 0 || target < 0) return null;
+
+        IntPath path = new IntPath();
+        AtomicLongArray visitedBits = new AtomicLongArray((this.cells.length + 63) >>> 6);
+        int[] parent = new int[this.cells.length];
+        int[] frontier = new int[this.cells.length];
+        int[] nextFrontier = new int[this.cells.length];
+
+        claim(visitedBits, start);
+        parent[start] = start;
+        frontier[0] = start;
+        int frontierSize = 1;
+
+        while (frontierSize > 0 && !isClaimed(visitedBits, target)) {
+            AtomicInteger nextFrontierSize = new AtomicInteger();
+            FrontierExpansion expansion = new FrontierExpansion(this.offsets, this.targets, frontier, 0, frontierSize,
+                    nextFrontier, nextFrontierSize, visitedBits, parent);
+            if (frontierSize <= PARALLEL_GRAIN) {
+                expansion.compute();    // not worth the overhead of the pool
+            } else {
+                pool.invoke(expansion);
+            }
+
+            // the next frontier becomes the current frontier
+            int[] expanded = frontier;
+            frontier = nextFrontier;
+            nextFrontier = expanded;
+            frontierSize = nextFrontierSize.get();
+        }
+
+        // register all visited vertices
+        BitSet visited = this.newCellBits();
+        for (int w = 0; w < visitedBits.length(); w++) {
+            long word = visitedBits.get(w);
+            while (word != 0) {
+                visited.set(this.cells[(w << 6) + Long.numberOfTrailingZeros(word)]);
+                word &= word - 1;
+            }
+        }
+        path.visited = visited;
+
+        if (!isClaimed(visitedBits, target)) return null;     // No path found from start to target
+
+        this.buildPath(path, parent, start, target);
+        return path;
+    }
+
+    /**
+     * atomically marks a vertex as visited
+     * @return true if the vertex was not visited before, i.e. the caller has claimed the vertex
+     */
+    private static boolean claim(AtomicLongArray visitedBits, int vertex) {
+        int w = vertex >>> 6;
+        long bit = 1L << vertex;
+        long word = visitedBits.get(w);
+        while ((word & bit) == 0) {
+            long witness = visitedBits.compareAndExchange(w, word, word | bit);
+            if (witness == word) return true;
+            word = witness;
+        }
+        return false;
+    }
+
+    private static boolean isClaimed(AtomicLongArray visitedBits, int vertex) {
+        return (visitedBits.get(vertex >>> 6) & (1L << vertex)) != 0;
+    }
+
+    /**
+     * expands a range of the frontier into the next frontier of a parallel breadth-first search
+     * ranges above the PARALLEL_GRAIN are split into two halves that are expanded in parallel
+     */
+    private static class FrontierExpansion extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] frontier;
+        private final int from, to;
+        private final int[] nextFrontier;
+        private final AtomicInteger nextFrontierSize;
+        private final AtomicLongArray visitedBits;
+        private final int[] parent;
+
+        private FrontierExpansion(int[] offsets, int[] targets, int[] frontier, int from, int to,
+                                  int[] nextFrontier, AtomicInteger nextFrontierSize,
+                                  AtomicLongArray visitedBits, int[] parent) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.nextFrontier = nextFrontier;
+            this.nextFrontierSize = nextFrontierSize;
+            this.visitedBits = visitedBits;
+            this.parent = parent;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > PARALLEL_GRAIN) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new FrontierExpansion(this.offsets, this.targets, this.frontier, this.from, middle,
+                                this.nextFrontier, this.nextFrontierSize, this.visitedBits, this.parent),
+                        new FrontierExpansion(this.offsets, this.targets, this.frontier, middle, this.to,
+                                this.nextFrontier, this.nextFrontierSize, this.visitedBits, this.parent));
+                return;
+            }
+
+            // collect the claimed vertices locally, and append them to the next frontier in one go
+            int[] claimed = new int[this.to - this.from];
+            int numClaimed = 0;
+            for (int i = this.from; i < this.to; i++) {
+                int current = this.frontier[i];
+                for (int e = this.offsets[current]; e < this.offsets[current + 1]; e++) {
+                    int neighbour = this.targets[e];
+                    if (isClaimed(this.visitedBits, neighbour) || !claim(this.visitedBits, neighbour)) continue;
+                    this.parent[neighbour] = current;
+                    if (numClaimed == claimed.length) claimed = Arrays.copyOf(claimed, 2 * claimed.length);
+                    claimed[numClaimed++] = neighbour;
+                }
+            }
+            int position = this.nextFrontierSize.getAndAdd(numClaimed);
+            System.arraycopy(claimed, 0, this.nextFrontier, position, numClaimed);
+        }
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex according to Dijkstra's algorithm
+     * using the edge weights that have been pre-calculated when the graph was compiled
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the shortest path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath dijkstraShortestPath(Integer startVertex, Integer targetVertex) {
+        if (startVertex == null || targetVertex == null) return null;
+        return this.toGPath(this.shortestPath(startVertex, targetVertex, false));
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex according to Dijkstra's algorithm
+     * see dijkstraShortestPath()
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the shortest path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public IntPath intDijkstraShortestPath(int startVertex, int targetVertex) {
+        return this.shortestPath(startVertex, targetVertex, false);
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex according to the A* algorithm
+     * using the edge weights that have been pre-calculated when the graph was compiled
+     * and the manhattan distance between cells as the heuristic.
+     * That heuristic is consistent if the weight of every passage is at least its manhattan distance
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the shortest path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath aStarShortestPath(Integer startVertex, Integer targetVertex) {
+        if (startVertex == null || targetVertex == null) return null;
+        return this.toGPath(this.shortestPath(startVertex, targetVertex, true));
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex according to the A* algorithm
+     * see aStarShortestPath()
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @return the shortest path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public IntPath intAStarShortestPath(int startVertex, int targetVertex) {
+        return this.shortestPath(startVertex, targetVertex, true);
+    }
+
+    private IntPath shortestPath(int startVertex, int targetVertex, boolean guided) {
+        int start = this.indexOf(startVertex);
+        int target = this.indexOf(targetVertex);
+        if (start < 0 || target < 0) return null;
+
+        IntPath path = new IntPath();
+        BitSet visited = this.newCellBits();
+        path.visited = visited;
+        visited.set(this.cells[start]);
+        if (start == target) {
+            path.vertices.add(this.cells[start]);
+            return path;
+        }
+
+        // the minimum spanning tree of the search in primitive arrays
+        double[] weightSumTo = new double[this.cells.length];
+        Arrays.fill(weightSumTo, Double.MAX_VALUE);
+        int[] parent = new int[this.cells.length];
+        BitSet marked = new BitSet(this.cells.length);
+        IndexedMinHeap nearestVertices = new IndexedMinHeap(this.cells.length);
+
+        weightSumTo[start] = 0.0;
+        parent[start] = start;
+        nearestVertices.insert(start, guided ? this.manhattanDistance(start, target) : 0.0);
+
+        while (!nearestVertices.isEmpty()) {
+            int nearest = nearestVertices.pollMin();
+            marked.set(nearest);
+            visited.set(this.cells[nearest]);
+
+            if (nearest == target) {
+                this.buildPath(path, parent, start, target);
+                path.totalWeight = weightSumTo[target];
+                return path;
+            }
+
+            for (int e = this.offsets[nearest]; e < this.offsets[nearest + 1]; e++) {
+                int neighbour = this.targets[e];
+                if (marked.get(neighbour)) continue;
+                double sum = weightSumTo[nearest] + this.weights[e];
+                if (sum < weightSumTo[neighbour]) {
+                    weightSumTo[neighbour] = sum;
+                    parent[neighbour] = nearest;
+                    nearestVertices.insertOrDecrease(neighbour,
+                            guided ? sum + this.manhattanDistance(neighbour, target) : sum);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reusable state of repeated shortest path searches by a single thread, see shortestPath(..., scratch)
+     * Entries of weightSumTo and parent are only valid if the reachedStamps of their vertex match the generation
+     * of the current search, and a vertex is marked if its markedStamps match,
+     * such that nothing needs to be cleared or allocated between searches.
+     */
+    static class SearchScratch {
+        private final double[] weightSumTo;
+        private final int[] parent;
+        private final int[] reachedStamps;
+        private final int[] markedStamps;
+        private final IndexedMinHeap nearestVertices;
+        private int generation = 0;
+
+        private SearchScratch(int numVertices) {
+            this.weightSumTo = new double[numVertices];
+            this.parent = new int[numVertices];
+            this.reachedStamps = new int[numVertices];
+            this.markedStamps = new int[numVertices];
+            this.nearestVertices = new IndexedMinHeap(numVertices);
+        }
+
+        private void nextGeneration() {
+            this.nearestVertices.clear();
+            if (++this.generation == Integer.MAX_VALUE) {
+                // restart the stamps, before the generations would wrap around
+                Arrays.fill(this.reachedStamps, 0);
+                Arrays.fill(this.markedStamps, 0);
+                this.generation = 1;
+            }
+        }
+    }
+
+    SearchScratch newSearchScratch() {
+        return new SearchScratch(this.cells.length);
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex by Dijkstra or A*, like shortestPath(),
+     * but reuses the given scratch state of an earlier search instead of allocating new state
+     * and does not track the visited vertices, such that repeated searches cause hardly any allocation.
+     * The graph itself is only read, so searches with distinct scratch state can run in parallel
+     *
+     * @param startVertex
+     * @param targetVertex
+     * @param guided        use the manhattan distance as the A* heuristic, or no heuristic as in Dijkstra
+     * @param scratch       state that is not being used by any other search at the same time
+     * @return the shortest path from startVertex to targetVertex, with an empty visited set
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    IntPath shortestPath(int startVertex, int targetVertex, boolean guided, SearchScratch scratch) {
+        int start = this.indexOf(startVertex);
+        int target = this.indexOf(targetVertex);
+        if (start < 0 || target < 0) return null;
+
+        scratch.nextGeneration();
+        int generation = scratch.generation;
+        double[] weightSumTo = scratch.weightSumTo;
+        int[] parent = scratch.parent;
+        int[] reachedStamps = scratch.reachedStamps;
+        int[] markedStamps = scratch.markedStamps;
+        IndexedMinHeap nearestVertices = scratch.nearestVertices;
+
+        weightSumTo[start] = 0.0;
+        parent[start] = start;
+        reachedStamps[start] = generation;
+        nearestVertices.insert(start, guided ? this.manhattanDistance(start, target) : 0.0);
+
+        while (!nearestVertices.isEmpty()) {
+            int nearest = nearestVertices.pollMin();
+            markedStamps[nearest] = generation;
+
+            if (nearest == target) {
+                IntPath path = new IntPath();
+                this.buildPath(path, parent, start, target);
+                path.totalWeight = weightSumTo[target];
+                return path;
+            }
+
+            for (int e = this.offsets[nearest]; e < this.offsets[nearest + 1]; e++) {
+                int neighbour = this.targets[e];
+                if (markedStamps[neighbour] == generation) continue;
+                double sum = weightSumTo[nearest] + this.weights[e];
+                if (reachedStamps[neighbour] != generation || sum < weightSumTo[neighbour]) {
+                    reachedStamps[neighbour] = generation;
+                    weightSumTo[neighbour] = sum;
+                    parent[neighbour] = nearest;
+                    nearestVertices.insertOrDecrease(neighbour,
+                            guided ? sum + this.manhattanDistance(neighbour, target) : sum);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calculates the shortest distance from every vertex towards the given targetVertex in one sweep,
+     * using Dijkstra's algorithm from the targetVertex backwards over the incoming edges and their weights
+     * The result also tracks the next hop from every vertex along its shortest path towards the target.
+     *
+     * @param targetVertex
+     * @return the distance field, or null if targetVertex is not a vertex of this graph
+     */
+    public ExitDistanceField distanceFieldTo(int targetVertex) {
+        int target = this.indexOf(targetVertex);
+        if (target < 0) return null;
+
+        double[] distances = new double[this.cells.length];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        int[] nextHops = new int[this.cells.length];
+        Arrays.fill(nextHops, NONE);
+        BitSet marked = new BitSet(this.cells.length);
+        IndexedMinHeap nearestVertices = new IndexedMinHeap(this.cells.length);
+
+        IncomingEdges incoming = this.incomingEdges();
+        distances[target] = 0.0;
+        nextHops[target] = target;
+        nearestVertices.insert(target, 0.0);
+        while (!nearestVertices.isEmpty()) {
+            int nearest = nearestVertices.pollMin();
+            marked.set(nearest);
+            for (int e = incoming.offsets[nearest]; e < incoming.offsets[nearest + 1]; e++) {
+                int predecessor = incoming.sources[e];
+                if (marked.get(predecessor)) continue;
+                double sum = distances[nearest] + incoming.weights[e];
+                if (sum < distances[predecessor]) {
+                    distances[predecessor] = sum;
+                    // the predecessor continues towards the target via its edge into the nearest vertex
+                    nextHops[predecessor] = nearest;
+                    nearestVertices.insertOrDecrease(predecessor, sum);
+                }
+            }
+        }
+        return new ExitDistanceField(targetVertex, this.cells, distances, nextHops);
+    }
+
+    /**
+     * contracts all vertices of this graph into a contraction hierarchy, for fast repeated shortest path queries
+     * @return
+     */
+    public ContractionHierarchy buildContractionHierarchy() {
+        return ContractionHierarchy.build(this.cells, this.offsets, this.targets, this.weights);
+    }
+
+    /**
+     * adds the cells of all vertices from start to target into the path,
+     * following the predecessors in the search tree backwards from the target
+     */
+    private void buildPath(IntPath path, int[] predecessors, int start, int target) {
+        int vertex = target;
+        while (vertex != start) {
+            path.vertices.add(this.cells[vertex]);
+            vertex = predecessors[vertex];
+        }
+        path.vertices.add(this.cells[start]);
+        path.vertices.reverse();
+    }
+
+    private GPath toGPath(IntPath path) {
+        return path != null ? path.toGPath(this) : null;
+    }
+
+    private double manhattanDistance(int vertex1, int vertex2) {
+        int cell1 = this.cells[vertex1];
+        int cell2 = this.cells[vertex2];
+        return Math.abs(cell1 % this.width - cell2 % this.width) + Math.abs(cell1 / this.width - cell2 / this.width);
+    }
+
+    private BitSet newCellBits() {
+        return new BitSet(this.cells.length > 0 ? this.cells[this.cells.length - 1] + 1 : 0);
+    }
+}
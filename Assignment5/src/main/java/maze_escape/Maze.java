@@ -1,16 +1,22 @@
 package maze_escape;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.HashSet;
-import java.util.Locale;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class Maze extends AbstractGraph<Integer> {
 
@@ -40,19 +46,76 @@ public class Maze extends AbstractGraph<Integer> {
         WEST
     }
 
+    /**
+     * receives notifications of changes of the walls of a maze, e.g. to repair search state incrementally
+     */
+    public interface WallChangeListener {
+        /**
+         * a wall in specified direction of cell(x,y) has been created or removed by setWall() or setWalls()
+         * @param x
+         * @param y
+         * @param direction
+         * @param value     true if the wall has been created, false if it has been removed
+         */
+        void wallChanged(int x, int y, Direction direction, boolean value);
+
+        /**
+         * any number of walls of the maze may have been changed at once, e.g. by a maze generator
+         */
+        void allWallsChanged();
+
+        /**
+         * adapts an action that does not care which walls have changed, e.g. cache::invalidateAll of a CachingGraph
+         * @param action    runs after every change of any wall
+         * @return          the listener to be registered with addWallChangeListener()
+         */
+        static WallChangeListener onAnyChange(Runnable action) {
+            return new WallChangeListener() {
+                @Override
+                public void wallChanged(int x, int y, Direction direction, boolean value) {
+                    action.run();
+                }
+
+                @Override
+                public void allWallsChanged() {
+                    action.run();
+                }
+            };
+        }
+    }
+
     /**
      * compact representation of all different walls in the maze, minimizing memory footprint
      * notice: southWall[x,y] == northWall[x,y+1], eastWall[x,y] = westWall[x+1,y]
      * so we only need to represent northWalls and westWalls
+     * these are packed into one bit per wall, which takes about 100MB for a 20000x20000 maze
      */
-    private boolean[][] northWalls;
-    private boolean[][] westWalls;
+    private WallBitboard walls;
+
+    // the compiled junction graph of the current lay-out of the maze, cleared when any wall is changed
+    private JunctionGraph junctionGraph;
+
+    // the connected component of every cell in the current lay-out of the maze, cleared when any wall is changed
+    private ComponentLabels componentLabels;
+
+    // the cluster abstraction for hierarchical path-finding, built lazily and kept up-to-date by wall notifications
+    private ClusterHierarchy clusterHierarchy;
+
+    // listeners that are notified of every change of walls
+    private final List<WallChangeListener> wallChangeListeners = new ArrayList<>();
+
+    // switches getAllVertices() to collect the reachable cells in a compact IntBitSet
+    private boolean bitSetReachability = false;
 
     // some extra constants supporting navigation
-    private final static int NUM_DIRECTIONS = Direction.values().length;
+    private final static Direction[] DIRECTIONS = Direction.values();
+    private final static int NUM_DIRECTIONS = DIRECTIONS.length;
     private final static int[] DELTA_X = {0, +1, 0, -1};
     private final static int[] DELTA_Y = {-1, 0, +1, 0};
 
+    // number of failed random attempts in a row, after which removeRandomWalls switches to its candidate set
+    private final static int MAX_FAILED_ATTEMPTS = 64;
+
     /**
      * the randomizer is used to generate random mazes
      * Repreducible results of calculations can be obtained by fixing the seed of the randomizer
@@ -63,16 +126,32 @@ public class Maze extends AbstractGraph<Integer> {
         randomizer = new Random(seed);
     }
 
+    static Random getRandomizer() {
+        return randomizer;
+    }
+
 
     public Maze(int width, int height) {
         this.width = width;
         this.height = height;
 
-        // we need one extra vertically, because southWall[x,HEIGHT-1] == northWall[x,HEIGHT]
-        this.northWalls = new boolean[width][height + 1];
+        // we need one extra row of northWalls, because southWall[x,HEIGHT-1] == northWall[x,HEIGHT]
+        // and one extra column of westWalls, because eastWall[WIDTH-1,y] == westWall[WIDTH,y]
+        this.walls = new WallBitboard(width, height);
+    }
 
-        // we need one extra horizontally, because eastWall[WIDTH-1,y] == westWall[WIDTH,y]
-        this.westWalls = new boolean[width + 1][height];
+    /**
+     * creates a maze on top of existing wall storage, e.g. from a mapped maze file
+     * @param walls
+     * @param startNode
+     * @param exitNode
+     */
+    Maze(WallBitboard walls, int startNode, int exitNode) {
+        this.width = walls.width;
+        this.height = walls.height;
+        this.walls = walls;
+        this.startNode = startNode;
+        this.exitNode = exitNode;
     }
 
     /**
@@ -113,13 +192,13 @@ public class Maze extends AbstractGraph<Integer> {
     public boolean getWall(int x, int y, Direction direction) {
         switch (direction) {
             case NORTH:
-                return this.northWalls[x][y];
+                return this.walls.getNorth(x, y);
             case EAST:
-                return this.westWalls[x + 1][y];
+                return this.walls.getWest(x + 1, y);
             case SOUTH:
-                return this.northWalls[x][y + 1];
+                return this.walls.getNorth(x, y + 1);
             case WEST:
-                return this.westWalls[x][y];
+                return this.walls.getWest(x, y);
         }
         return false;
     }
@@ -136,20 +215,27 @@ public class Maze extends AbstractGraph<Integer> {
      * @param value     use true to create, false to remove
      */
     public void setWall(int x, int y, Direction direction, boolean value) {
+        this.junctionGraph = null;
+        this.componentLabels = null;
         switch (direction) {
             case NORTH:
-                this.northWalls[x][y] = value;
+                this.walls.setNorth(x, y, value);
                 break;
             case EAST:
-                this.westWalls[x + 1][y] = value;
+                this.walls.setWest(x + 1, y, value);
                 break;
             case SOUTH:
-                this.northWalls[x][y + 1] = value;
+                this.walls.setNorth(x, y + 1, value);
                 break;
             case WEST:
-                this.westWalls[x][y] = value;
+                this.walls.setWest(x, y, value);
                 break;
         }
+        if (!this.wallChangeListeners.isEmpty()) {
+            for (WallChangeListener listener : this.wallChangeListeners) {
+                listener.wallChanged(x, y, direction, value);
+            }
+        }
     }
 
     private void setWall(int cell, Direction direction, boolean value) {
@@ -163,10 +249,44 @@ public class Maze extends AbstractGraph<Integer> {
      * @param value     use true to create, false to remove
      */
     public void setWalls(int x, int y, boolean value) {
-        this.northWalls[x][y] = value;
-        this.westWalls[x + 1][y] = value;
-        this.northWalls[x][y + 1] = value;
-        this.westWalls[x][y] = value;
+        this.junctionGraph = null;
+        this.componentLabels = null;
+        this.walls.setNorth(x, y, value);
+        this.walls.setWest(x + 1, y, value);
+        this.walls.setNorth(x, y + 1, value);
+        this.walls.setWest(x, y, value);
+        if (!this.wallChangeListeners.isEmpty()) {
+            for (WallChangeListener listener : this.wallChangeListeners) {
+                for (Direction direction : DIRECTIONS) {
+                    listener.wallChanged(x, y, direction, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * create or remove all walls of the maze
+     * @param value     use true to create, false to remove
+     */
+    private void setAllWalls(boolean value) {
+        this.junctionGraph = null;
+        this.componentLabels = null;
+        this.walls.fill(value);
+        this.notifyAllWallsChanged();
+    }
+
+    private void notifyAllWallsChanged() {
+        for (WallChangeListener listener : this.wallChangeListeners) {
+            listener.allWallsChanged();
+        }
+    }
+
+    public void addWallChangeListener(WallChangeListener listener) {
+        this.wallChangeListeners.add(listener);
+    }
+
+    public void removeWallChangeListener(WallChangeListener listener) {
+        this.wallChangeListeners.remove(listener);
     }
 
     private void setWalls(int cell, boolean value) {
@@ -180,10 +300,8 @@ public class Maze extends AbstractGraph<Integer> {
      * @return
      */
     private int getNumWalls(int x, int y) {
-        int numWalls = 0;
-        for (Direction direction : Direction.values())
-            numWalls += this.getWall(x, y, direction) ? 1 : 0;
-        return numWalls;
+        return (this.walls.getNorth(x, y) ? 1 : 0) + (this.walls.getWest(x + 1, y) ? 1 : 0) +
+                (this.walls.getNorth(x, y + 1) ? 1 : 0) + (this.walls.getWest(x, y) ? 1 : 0);
     }
 
     private int getNumWalls(int cell) {
@@ -226,7 +344,7 @@ public class Maze extends AbstractGraph<Integer> {
      * @return  the cell number of the neighbour cell, if found within the maze boundaries
      *          or -1 if the direction traverses out of the rectangular boundary of the maze.
      */
-    private int getDirectNeighbour(int x, int y, Direction direction) {
+    int getDirectNeighbour(int x, int y, Direction direction) {
 
         // compute neighbour position coordinates
         int neighbourX = x + DELTA_X[direction.ordinal()];
@@ -244,6 +362,21 @@ public class Maze extends AbstractGraph<Integer> {
         return getDirectNeighbour(posX(cell), posY(cell), direction);
     }
 
+    /**
+     * finds the adjacent cell in specified direction from the cell with given coordinates x,y
+     * which can be entered without passing a wall
+     * @param x
+     * @param y
+     * @param direction
+     * @return  the cell number of the adjacent cell,
+     *          or -1 if a wall blocks the way or the direction traverses out of the boundary of the maze.
+     */
+    int adjacentCell(int x, int y, Direction direction) {
+        int neighbour = this.getDirectNeighbour(x, y, direction);
+        if (neighbour < 0 || this.getWall(x, y, direction)) return -1;
+        return neighbour;
+    }
+
 
     /**
      * Calculates the set of vertex numbers within the graph abstraction that are connected to the given fromVertex
@@ -257,63 +390,154 @@ public class Maze extends AbstractGraph<Integer> {
 
         Set<Integer> neighbours = new HashSet<>();
         // try all initial directions from fromVertex
-        for (Direction direction : Direction.values()) {
-            int nextNeighbour = this.getDirectNeighbour(fromVertex, direction);
-            if (nextNeighbour < 0 || this.getWall(fromVertex, direction))
-                continue; // no passage, try the next direction available from fromVertex
-
-            int neighbour, numWalls;
-            do {
-                // pass through to the next neighbour along direction
-                neighbour = nextNeighbour;
-                numWalls = this.getNumWalls(neighbour);
-                nextNeighbour = this.getDirectNeighbour(neighbour, direction);
-            } while (nextNeighbour >= 0 &&    // we have a further neighbour
-                    !this.getWall(neighbour, direction) && // the passage continues
-                    numWalls == NUM_DIRECTIONS - 2    // there is no junction or dead-end
-            );
-            // we've got a neighbour node with a straight passage along the iterated direction
-            // try to continue further around a corner
-            Direction turnedDirection;
-            if (numWalls == NUM_DIRECTIONS - 2) {
-                // try a perpendicular direction
-                turnedDirection = Direction.values()[(direction.ordinal() + 1) % NUM_DIRECTIONS];
-                if (this.getWall(neighbour, turnedDirection)) // a wall is blocking, try the other perpendicular direction
-                    turnedDirection = Direction.values()[(direction.ordinal() + NUM_DIRECTIONS - 1) % NUM_DIRECTIONS];
-                nextNeighbour = this.getDirectNeighbour(neighbour, turnedDirection);
+        for (Direction direction : DIRECTIONS) {
+            int neighbour = this.followPassage(fromVertex, direction, null);
+            if (neighbour >= 0) {
+                // add this final neighbour at the end of the passage to the set
+                neighbours.add(neighbour);
+            }
+        }
+
+        return neighbours;
+    }
+
+    /**
+     * Calculates the set of vertex numbers that have a passage towards the given toVertex
+     * Walls are the same from both sides, so every passage towards toVertex runs along the cells
+     * of a passage that is followed from toVertex backwards. But a passage is not always the same in both directions:
+     * followed from toVertex it may pass through a cell with two walls, like the entry, or turn around
+     * a corner where the passage in the other direction ends, because it would take a third direction.
+     * So every cell along the passages from toVertex is a candidate predecessor,
+     * which is checked by following its passage back towards toVertex.
+     * If the junction graph of the current lay-out has been compiled already, its incoming edges are used instead,
+     * which only hold its vertices: the pass-through cells halfway passages are only visited by a search
+     * that starts there.
+     */
+    @Override
+    public Set<Integer> getPredecessors(Integer toVertex) {
+        if (this.junctionGraph != null && this.junctionGraph.indexOf(toVertex) >= 0) {
+            return this.junctionGraph.getPredecessors(toVertex);
+        }
+
+        Set<Integer> predecessors = new HashSet<>();
+        IntArrayList passedCells = new IntArrayList();
+        for (Direction direction : DIRECTIONS) {
+            passedCells.clear();
+            if (this.followPassage(toVertex, direction, passedCells::add) < 0) continue;
+            for (int i = 0; i < passedCells.size(); i++) {
+                int cell = passedCells.get(i);
+                // follow the passage from the candidate back along the passed cells
+                int previous = i > 0 ? passedCells.get(i - 1) : toVertex;
+                for (Direction back : DIRECTIONS) {
+                    if (this.getDirectNeighbour(cell, back) != previous) continue;
+                    if (this.followPassage(cell, back, null) == toVertex) predecessors.add(cell);
+                    break;
+                }
+            }
+        }
+        return predecessors;
+    }
 
-                while (nextNeighbour >= 0 &&    // we have a further neighbour
+    /**
+     * follows the passage from the given fromVertex that starts in the given direction
+     * along all pass-through cells that have exactly two walls, if possible.
+     * @param fromVertex
+     * @param direction
+     * @param passedCells   optional consumer of all cells along the passage in order of traversal,
+     *                      excluding fromVertex and including the neighbour at the end
+     * @return  the vertex number of the neighbour at the end of the passage
+     *          or -1 if there is no passage from fromVertex in the given direction
+     */
+    private int followPassage(int fromVertex, Direction direction, IntConsumer passedCells) {
+        int nextNeighbour = this.getDirectNeighbour(fromVertex, direction);
+        if (nextNeighbour < 0 || this.getWall(fromVertex, direction))
+            return -1; // no passage in this direction from fromVertex
+
+        int neighbour, numWalls;
+        do {
+            // pass through to the next neighbour along direction
+            neighbour = nextNeighbour;
+            if (passedCells != null) passedCells.accept(neighbour);
+            numWalls = this.getNumWalls(neighbour);
+            nextNeighbour = this.getDirectNeighbour(neighbour, direction);
+        } while (nextNeighbour >= 0 &&    // we have a further neighbour
+                !this.getWall(neighbour, direction) && // the passage continues
+                numWalls == NUM_DIRECTIONS - 2    // there is no junction or dead-end
+        );
+        // we've got a neighbour node with a straight passage along the iterated direction
+        // try to continue further around a corner
+        Direction turnedDirection;
+        if (numWalls == NUM_DIRECTIONS - 2) {
+            // try a perpendicular direction
+            turnedDirection = DIRECTIONS[(direction.ordinal() + 1) % NUM_DIRECTIONS];
+            if (this.getWall(neighbour, turnedDirection)) // a wall is blocking, try the other perpendicular direction
+                turnedDirection = DIRECTIONS[(direction.ordinal() + NUM_DIRECTIONS - 1) % NUM_DIRECTIONS];
+            nextNeighbour = this.getDirectNeighbour(neighbour, turnedDirection);
+
+            while (nextNeighbour >= 0 &&    // we have a further neighbour
+                    !this.getWall(neighbour, turnedDirection) && // the passage continues
+                    numWalls == NUM_DIRECTIONS - 2) { // there is no junction or dead-end
+                do {
+                    // pass through to the next neighbour along turnedDirection
+                    neighbour = nextNeighbour;
+                    if (passedCells != null) passedCells.accept(neighbour);
+                    numWalls = this.getNumWalls(neighbour);
+                    nextNeighbour = this.getDirectNeighbour(neighbour, turnedDirection);
+                }
+                while (nextNeighbour >= 0 && // we have a further neighbour
                         !this.getWall(neighbour, turnedDirection) && // the passage continues
-                        numWalls == NUM_DIRECTIONS - 2) { // there is no junction or dead-end
-                    do {
-                        // pass through to the next neighbour along turnedDirection
-                        neighbour = nextNeighbour;
-                        numWalls = this.getNumWalls(neighbour);
-                        nextNeighbour = this.getDirectNeighbour(neighbour, turnedDirection);
-                    }
-                    while (nextNeighbour >= 0 && // we have a further neighbour
-                            !this.getWall(neighbour, turnedDirection) && // the passage continues
-                            numWalls == NUM_DIRECTIONS - 2);    // there is no junction or dead-end
+                        numWalls == NUM_DIRECTIONS - 2);    // there is no junction or dead-end
 
-                    // try again around a corner along the original direction
+                // try again around a corner along the original direction
+                nextNeighbour = this.getDirectNeighbour(neighbour, direction);
+                while (nextNeighbour >= 0 && // we have a further neighbour
+                        !this.getWall(neighbour, direction) && // the passage continues
+                        numWalls == NUM_DIRECTIONS - 2) {    // there is no junction or dead-end
+                    // pass through to the next neighbour along direction
+                    neighbour = nextNeighbour;
+                    if (passedCells != null) passedCells.accept(neighbour);
+                    numWalls = this.getNumWalls(neighbour);
                     nextNeighbour = this.getDirectNeighbour(neighbour, direction);
-                    while (nextNeighbour >= 0 && // we have a further neighbour
-                            !this.getWall(neighbour, direction) && // the passage continues
-                            numWalls == NUM_DIRECTIONS - 2) {    // there is no junction or dead-end
-                        // pass through to the next neighbour along direction
-                        neighbour = nextNeighbour;
-                        numWalls = this.getNumWalls(neighbour);
-                        nextNeighbour = this.getDirectNeighbour(neighbour, direction);
-                    }
-                    nextNeighbour = this.getDirectNeighbour(neighbour, turnedDirection);
                 }
+                nextNeighbour = this.getDirectNeighbour(neighbour, turnedDirection);
             }
+        }
 
-            // add this final neighbour at the end of the passage to the set
-            neighbours.add(neighbour);
+        return neighbour;
+    }
+
+    /**
+     * traces the cells along the passage between two adjacent vertices of the maze graph
+     * @param fromVertex
+     * @param toVertex      a neighbour of fromVertex, as given by getNeighbours(fromVertex)
+     * @return  the cells along the passage in order of traversal, excluding fromVertex and including toVertex
+     *          or null if toVertex cannot be reached along a single passage from fromVertex
+     */
+    int[] tracePassage(int fromVertex, int toVertex) {
+        for (Direction direction : DIRECTIONS) {
+            IntStream.Builder cells = IntStream.builder();
+            if (this.followPassage(fromVertex, direction, cells) == toVertex) return cells.build().toArray();
         }
+        return null;
+    }
 
-        return neighbours;
+    /**
+     * retrieves all vertices that can be reached directly or indirectly from the given firstVertex
+     * if bitSetReachability is switched on, the vertices are collected in an IntBitSet
+     * that iterates in order of cell number, instead of the order of traversal.
+     * @param firstVertex the start vertex for the retrieval
+     * @return
+     */
+    @Override
+    public Set<Integer> getAllVertices(Integer firstVertex) {
+        if (firstVertex == null || !this.bitSetReachability) {
+            return super.getAllVertices(firstVertex);
+        }
+        return this.getAllVertices(firstVertex, new IntBitSet(this.getNumberOfCells()));
+    }
+
+    public void setBitSetReachability(boolean bitSetReachability) {
+        this.bitSetReachability = bitSetReachability;
     }
 
     /**
@@ -322,7 +546,7 @@ public class Maze extends AbstractGraph<Integer> {
      * @param vertex2
      * @return
      */
-    public double manhattanDistance(Integer vertex1, Integer vertex2) {
+    public double manhattanDistance(int vertex1, int vertex2) {
         int horizontalDelta = posX(vertex1) - posX(vertex2);
         int verticalDelta = posY(vertex1) - posY(vertex2);
         return Math.abs(horizontalDelta) + Math.abs(verticalDelta);
@@ -335,10 +559,234 @@ public class Maze extends AbstractGraph<Integer> {
      * @param vertex2
      * @return
      */
-    public double manhattanTime(Integer vertex1, Integer vertex2) {
+    public double manhattanTime(int vertex1, int vertex2) {
         return 1.0 + this.manhattanDistance(vertex1, vertex2);
     }
 
+    /**
+     * Calculates the edge-weighted shortest path from the startVertex to targetVertex in the maze
+     * using A* with the manhattanDistance towards the target as the heuristic.
+     * Passages between neighbours follow at most two directions, so their length equals their manhattanDistance
+     * The heuristic is consistent for every weightMapper that charges at least the manhattanDistance of a passage,
+     * like manhattanDistance and manhattanTime do.
+     * @param startVertex
+     * @param targetVertex
+     * @param weightMapper
+     * @return
+     */
+    public GPath aStarShortestPath(Integer startVertex, Integer targetVertex,
+                                   ToDoubleBiFunction<Integer, Integer> weightMapper) {
+        return this.aStarShortestPath(startVertex, targetVertex, weightMapper, this::manhattanDistance);
+    }
+
+    /**
+     * compiles the graph abstraction of the current lay-out of the maze into an immutable JunctionGraph
+     * All junctions and dead-ends become vertices, together with the entry, the exit
+     * and any other cells where passages end, such that the compiled neighbours of every vertex
+     * are the same as calculated by getNeighbours()
+     * @param weightMapper  calculates the weight of the passage between two neighbouring vertices
+     * @return
+     */
+    public JunctionGraph compileJunctionGraph(IntIntToDoubleFunction weightMapper) {
+        // mark all junctions and dead-ends, and the entry and exit
+        BitSet vertexCells = new BitSet(this.getNumberOfCells());
+        for (int cell = 0; cell < this.getNumberOfCells(); cell++) {
+            if (this.getNumWalls(cell) != NUM_DIRECTIONS - 2) vertexCells.set(cell);
+        }
+        vertexCells.set(this.startNode);
+        vertexCells.set(this.exitNode);
+
+        // passages may also end at a pass-through cell, e.g. at an opening in the outer wall
+        // add those ends as well, and follow their passages in turn
+        Deque<Integer> extraCells = new ArrayDeque<>();
+        for (int cell = vertexCells.nextSetBit(0); cell >= 0; cell = vertexCells.nextSetBit(cell + 1)) {
+            extraCells.push(cell);
+            while (!extraCells.isEmpty()) {
+                int vertex = extraCells.pop();
+                for (Direction direction : DIRECTIONS) {
+                    int neighbour = this.followPassage(vertex, direction, null);
+                    if (neighbour >= 0 && !vertexCells.get(neighbour)) {
+                        vertexCells.set(neighbour);
+                        // ends beyond the current cell will be found by the outer iteration
+                        if (neighbour < cell) extraCells.push(neighbour);
+                    }
+                }
+            }
+        }
+
+        // build the compressed rows of edges of all vertices in order of their cell number
+        int[] cells = vertexCells.stream().toArray();
+        int[] offsets = new int[cells.length + 1];
+        int[] targets = new int[2 * cells.length + NUM_DIRECTIONS];
+        double[] weights = new double[targets.length];
+        int numEdges = 0;
+        for (int i = 0; i < cells.length; i++) {
+            offsets[i] = numEdges;
+            for (Direction direction : DIRECTIONS) {
+                int neighbour = this.followPassage(cells[i], direction, null);
+                if (neighbour < 0) continue;
+                int target = Arrays.binarySearch(cells, neighbour);
+                // skip another passage towards the same neighbour, like the set of getNeighbours() does
+                boolean duplicate = false;
+                for (int e = offsets[i]; e < numEdges; e++) duplicate |= targets[e] == target;
+                if (duplicate) continue;
+
+                if (numEdges == targets.length) {
+                    targets = Arrays.copyOf(targets, targets.length + (targets.length >> 1));
+                    weights = Arrays.copyOf(weights, targets.length);
+                }
+                targets[numEdges] = target;
+                weights[numEdges] = weightMapper.applyAsDouble(cells[i], neighbour);
+                numEdges++;
+            }
+        }
+        offsets[cells.length] = numEdges;
+
+        return new JunctionGraph(this.width, cells, offsets,
+                Arrays.copyOf(targets, numEdges), Arrays.copyOf(weights, numEdges));
+    }
+
+    /**
+     * provides the junction graph of the current lay-out of the maze with manhattanTime as edge weights
+     * the graph is compiled at first use and reused until a wall of the maze is changed.
+     * @return
+     */
+    public JunctionGraph getJunctionGraph() {
+        if (this.junctionGraph == null) {
+            this.junctionGraph = this.compileJunctionGraph(this::manhattanTime);
+        }
+        return this.junctionGraph;
+    }
+
+    /**
+     * @return the connected component of every cell in the current lay-out of this maze
+     * it is labelled upon first use and relabelled after any change of walls
+     */
+    public ComponentLabels getComponentLabels() {
+        if (this.componentLabels == null) {
+            this.componentLabels = new ComponentLabels(this);
+        }
+        return this.componentLabels;
+    }
+
+    /**
+     * @return whether the exit of the maze can be reached from its start
+     */
+    public boolean isSolvable() {
+        return this.getComponentLabels().isConnected(this.startNode, this.exitNode);
+    }
+
+    /**
+     * @return the cluster abstraction of this maze for hierarchical path-finding
+     * it is created upon first use and follows all later changes of walls in this maze
+     */
+    public ClusterHierarchy getClusterHierarchy() {
+        if (this.clusterHierarchy == null) {
+            this.clusterHierarchy = new ClusterHierarchy(this, ClusterHierarchy.DEFAULT_CLUSTER_SIZE);
+        }
+        return this.clusterHierarchy;
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex along the cells of the maze
+     * by hierarchical path-finding (HPA*) over the cluster abstraction of the maze
+     * The resulting path includes every cell along the way, with the number of steps as its total weight.
+     * @param startVertex
+     * @param targetVertex
+     * @return
+     */
+    public GPath hierarchicalShortestPath(Integer startVertex, Integer targetVertex) {
+        if (startVertex == null || targetVertex == null) return null;
+        IntPath path = this.getClusterHierarchy().shortestPath(startVertex, targetVertex);
+        return path != null ? path.toGPath(this) : null;
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex along the cells of the maze
+     * by a bit-parallel breadth-first search, which expands up to 64 adjacent cells of a row at once
+     * The resulting path includes every cell along the way, with the number of steps as its total weight.
+     * @param startVertex
+     * @param targetVertex
+     * @return
+     */
+    public GPath bitParallelBreadthFirstSearch(Integer startVertex, Integer targetVertex) {
+        if (startVertex == null || targetVertex == null) return null;
+        IntPath path = new BitParallelBfs(this).shortestPath(startVertex, targetVertex);
+        return path != null ? path.toGPath(this) : null;
+    }
+
+    /**
+     * Calculates the shortest path from the startVertex to targetVertex along the cells of the maze
+     * by Jump Point Search, which skips the symmetric paths through open areas of the maze
+     * The resulting path includes every cell along the way, with the number of steps as its total weight.
+     * @param startVertex
+     * @param targetVertex
+     * @return
+     */
+    public GPath jumpPointSearch(Integer startVertex, Integer targetVertex) {
+        if (startVertex == null || targetVertex == null) return null;
+        IntPath path = new JumpPointSearch(this).shortestPath(startVertex, targetVertex);
+        return path != null ? path.toGPath(this) : null;
+    }
+
+    /**
+     * calculates the shortest manhattanTime from every vertex of the junction graph towards the exit of the maze
+     * in one sweep, such that the escape path from any vertex can be read off without a new search
+     * @return
+     */
+    public ExitDistanceField computeExitDistanceField() {
+        return this.getJunctionGraph().distanceFieldTo(this.exitNode);
+    }
+
+    /**
+     * Uses a level-synchronous parallel breadth-first search on the compiled junction graph of the maze
+     * to find a path from the startVertex to targetVertex with the least number of passages
+     * @param startVertex
+     * @param targetVertex
+     * @return the path from startVertex to targetVertex
+     * or null if target cannot be matched with a vertex in the sub-graph from startVertex
+     */
+    public GPath parallelBreadthFirstSearch(Integer startVertex, Integer targetVertex) {
+        return this.getJunctionGraph().parallelBreadthFirstSearch(startVertex, targetVertex);
+    }
+
+    /**
+     * Dead-end filling: produces a pruned copy of this maze, in which all dead-end branches have been sealed off
+     * A dead end is a cell with three walls, other than the start node and exit node.
+     * Closing the open wall of a dead end may turn its neighbour into a new dead end,
+     * so the pass seals every branch back to the junction where it leaves a passage or cycle.
+     * No path between start and exit (or any remaining cells) runs through a sealed dead end,
+     * so searches on the pruned copy find the same paths while visiting far fewer cells.
+     * Every cell is sealed at most once, so the pass takes linear time in the number of cells.
+     * @return the pruned copy, this maze remains unchanged
+     */
+    public Maze fillDeadEnds() {
+        Maze pruned = new Maze(this.walls.copy(), this.startNode, this.exitNode);
+
+        // the dead ends that are waiting to be sealed
+        IntArrayList deadEnds = new IntArrayList();
+        for (int cell = 0; cell < this.getNumberOfCells(); cell++) {
+            if (pruned.isDeadEnd(cell)) deadEnds.add(cell);
+        }
+
+        while (!deadEnds.isEmpty()) {
+            int deadEnd = deadEnds.removeLast();
+            for (Direction direction : DIRECTIONS) {
+                if (pruned.getWall(deadEnd, direction)) continue;
+                int neighbour = pruned.getDirectNeighbour(deadEnd, direction);
+                if (neighbour < 0) break;       // a dead end that opens to the outside is left as it is
+                pruned.setWall(deadEnd, direction, true);
+                if (pruned.isDeadEnd(neighbour)) deadEnds.add(neighbour);
+                break;
+            }
+        }
+        return pruned;
+    }
+
+    private boolean isDeadEnd(int cell) {
+        return cell != this.startNode && cell != this.exitNode && this.getNumWalls(cell) == NUM_DIRECTIONS - 1;
+    }
+
     public int getNumberOfCells() {
         return this.width * this.height;
     }
@@ -356,7 +804,7 @@ public class Maze extends AbstractGraph<Integer> {
         int firstDirectionIndex = randomizer.nextInt(NUM_DIRECTIONS);
         for (int d = 0; d < NUM_DIRECTIONS; d++) {
             // try the next direction for removing a wall
-            Direction direction = Direction.values()[(firstDirectionIndex + d) % NUM_DIRECTIONS];
+            Direction direction = DIRECTIONS[(firstDirectionIndex + d) % NUM_DIRECTIONS];
 
             // check if this direction has a wall
             if (!this.getWall(incompleteCell, direction)) continue;
@@ -389,9 +837,7 @@ public class Maze extends AbstractGraph<Integer> {
     public void generateRandomizedPrim() {
 
         // initialize all walls
-        this.forAllCells(n -> {
-            this.setWalls(n, true);
-        });
+        this.setAllWalls(true);
 
         // track visited but incomplete cells
         // these are cells that are part of the maze, but may have unvisited neighbours
@@ -419,6 +865,29 @@ public class Maze extends AbstractGraph<Integer> {
         }
     }
 
+    /**
+     * Randomized Eller maze generator.
+     * Populates a rectangular grid with a random spanning tree, like generateRandomizedPrim,
+     * but row by row, such that the generator itself only needs memory in proportion to the width of the maze.
+     * see EllerMazeGenerator
+     */
+    public void generateEller() {
+        this.junctionGraph = null;
+        this.componentLabels = null;
+        new EllerMazeGenerator(this.width, this.height).generate(new EllerMazeGenerator.RowSink() {
+            @Override
+            public void northRow(int y, long[] words) {
+                Maze.this.walls.setNorthRow(y, words);
+            }
+
+            @Override
+            public void westRow(int y, long[] words) {
+                Maze.this.walls.setWestRow(y, words);
+            }
+        }, -1, -1);
+        this.notifyAllWallsChanged();
+    }
+
     /**
      * configures an entry at the top-left position of the maze
      * and an exit at the bottom-right position
@@ -452,28 +921,35 @@ public class Maze extends AbstractGraph<Integer> {
         this.exitNode = cellNumber(exitX, exitY);
     }
 
+    /**
+     * checks whether a wall at the given cell and direction can be opened
+     * without leaving behind a 'dangling corner'
+     * @param x
+     * @param y
+     * @param direction     NORTH or WEST
+     * @return
+     */
+    private boolean canOpenWallWithoutCreatingEmptyCorner(int x, int y, Direction direction) {
+        // the wall runs from the top-left corner of the cell towards the corner at deltaX, deltaY
+        int deltaX = direction == Direction.NORTH ? 1 : 0;
+        int deltaY = direction == Direction.WEST ? 1 : 0;
+        return this.getWall(x, y, direction) &&
+                this.getDirectNeighbour(x, y, direction) >= 0 &&
+                getNumCornerWalls(x, y) > 1 &&
+                getNumCornerWalls(x + deltaX, y + deltaY) > 1;
+    }
+
     /**
      * tries to open a wall at the given cell and direction
      * if that can be done without leaving behind a 'dangling corner'
      * @param cell
-     * @param direction
-     * @param deltaX
-     * @param deltaY
+     * @param direction     NORTH or WEST
      * @return
      */
-    private boolean tryOpenWallWithoutCreatingEmptyCorner(int cell, Direction direction, int deltaX, int deltaY) {
-        int cellX = posX(cell);
-        int cellY = posY(cell);
-        // check if this direction has a wall
-        if (this.getWall(cellX, cellY, direction)) {
-            // find the neighbours
-            int neighbour = this.getDirectNeighbour(cellX, cellY, direction);
-            if (neighbour >= 0 &&
-                    getNumCornerWalls(cellX, cellY) > 1 &&
-                    getNumCornerWalls(cellX + deltaX, cellY + deltaY) > 1) {
-                this.setWall(cell, direction, false);
-                return true;
-            }
+    private boolean tryOpenWallWithoutCreatingEmptyCorner(int cell, Direction direction) {
+        if (this.canOpenWallWithoutCreatingEmptyCorner(posX(cell), posY(cell), direction)) {
+            this.setWall(cell, direction, false);
+            return true;
         }
         return false;
     }
@@ -487,40 +963,100 @@ public class Maze extends AbstractGraph<Integer> {
     private boolean tryOpenNORTHorWESTWallOf(int cell) {
         // ensure random order of trying north and west wall to prevent skew in maze
         if (randomizer.nextBoolean()) {
-            if (!this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.NORTH, 1, 0))
-                return this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.WEST, 0, 1);
+            if (!this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.NORTH))
+                return this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.WEST);
             else
                 return true;
         } else {
-            if (!this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.WEST, 0, 1))
-                return this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.NORTH, 1, 0);
+            if (!this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.WEST))
+                return this.tryOpenWallWithoutCreatingEmptyCorner(cell, Direction.NORTH);
             else
                 return true;
         }
     }
 
+    private boolean canOpenNORTHorWESTWallOf(int x, int y) {
+        return this.canOpenWallWithoutCreatingEmptyCorner(x, y, Direction.NORTH) ||
+                this.canOpenWallWithoutCreatingEmptyCorner(x, y, Direction.WEST);
+    }
+
     /**
      * tries to remove up to n walls at randomly selected cells and directions from the maze
      * if that can be done without leaving behind a 'dangling corner'
      * This may not be feasible if n is too high.
-     * So we make only n^2 attempts...
+     *
+     * Each wall is opened at a uniformly random cell among the cells that have an openable North or West wall.
+     * As long as most attempts succeed, such a cell is found by trying random cells of the maze.
+     * When too many attempts fail in a row, the remaining walls are drawn directly
+     * from an indexed set of all candidate cells, which is kept up-to-date at the corners of every opened wall.
      * @param n
      */
     public void removeRandomWalls(int n) {
-        int maxAttempts = n * n;
         int wallsToOpen = n;
-        while (wallsToOpen > 0 && maxAttempts > 0) {
+        int failedAttempts = 0;
+        while (wallsToOpen > 0 && failedAttempts < MAX_FAILED_ATTEMPTS) {
             if (tryOpenNORTHorWESTWallOf(randomizer.nextInt(this.getNumberOfCells()))) {
                 wallsToOpen--;
+                failedAttempts = 0;
+            } else {
+                failedAttempts++;
             }
-            maxAttempts--;
         }
+        if (wallsToOpen == 0) return;
+
+        // collect all candidate cells
+        RankedBitSet candidates = new RankedBitSet(this.getNumberOfCells());
+        for (int y = 0; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                if (this.canOpenNORTHorWESTWallOf(x, y)) candidates.set(cellNumber(x, y), true);
+            }
+        }
+
+        while (wallsToOpen > 0 && !candidates.isEmpty()) {
+            int cell = candidates.select(randomizer.nextInt(candidates.size()));
+            int x = posX(cell);
+            int y = posY(cell);
+            boolean north = this.canOpenWallWithoutCreatingEmptyCorner(x, y, Direction.NORTH);
+            boolean west = this.canOpenWallWithoutCreatingEmptyCorner(x, y, Direction.WEST);
+            // ensure random order of trying north and west wall to prevent skew in maze
+            if (north && west) {
+                north = randomizer.nextBoolean();
+            }
+            this.setWall(x, y, north ? Direction.NORTH : Direction.WEST, false);
+            wallsToOpen--;
+
+            // the opened wall has reduced the walls at both of its corners
+            this.updateCandidatesAtCorner(candidates, x, y);
+            if (north) {
+                this.updateCandidatesAtCorner(candidates, x + 1, y);
+            } else {
+                this.updateCandidatesAtCorner(candidates, x, y + 1);
+            }
+        }
+
         if (wallsToOpen > 0) {
-            System.out.printf("Exceeded maximum attempts to open a random wall: opened %d out of %d\n",
+            System.out.printf("No more walls can be opened without creating an empty corner: opened %d out of %d\n",
                     n - wallsToOpen, n);
         }
     }
 
+    /**
+     * re-evaluates the candidate cells of all North or West walls that touch the top-left corner of cell(x,y)
+     * @param candidates
+     * @param x     0 <= x <= this.width
+     * @param y     0 <= y <= this.height
+     */
+    private void updateCandidatesAtCorner(RankedBitSet candidates, int x, int y) {
+        // the north wall and west wall of cell(x,y), the north wall of cell(x-1,y) and the west wall of cell(x,y-1)
+        for (int d = 0; d < 3; d++) {
+            int cellX = d == 1 ? x - 1 : x;
+            int cellY = d == 2 ? y - 1 : y;
+            if (cellX >= 0 && cellX < this.width && cellY >= 0 && cellY < this.height) {
+                candidates.set(cellNumber(cellX, cellY), this.canOpenNORTHorWESTWallOf(cellX, cellY));
+            }
+        }
+    }
+
     /**
      * generates a random maze with a given density of opened walls
      * walls will be removed only if that can be done without leaving behind a 'dangling corner'
@@ -529,19 +1065,11 @@ public class Maze extends AbstractGraph<Integer> {
      */
     public void generateRandomized(double passageFactor) {
         // initialize all walls
-        this.forAllCells(n -> {
-            this.setWalls(n, true);
-        });
+        this.setAllWalls(true);
 
         this.removeRandomWalls((int) (passageFactor * ((this.width - 1) * this.height + this.width * (this.height - 1))));
     }
 
-    private void forAllCells(Consumer<Integer> action) {
-        for (int cell = 0; cell < this.getNumberOfCells(); cell++) {
-            action.accept(cell);
-        }
-    }
-
     /**
      * shows the lay-out of the maze in character format at the console
      */
@@ -550,9 +1078,9 @@ public class Maze extends AbstractGraph<Integer> {
         for (int y = 0; y < this.height; y++) {
             printHorizontal(y);
             for (int x = 0; x < this.width; x++) {
-                System.out.print(this.westWalls[x][y] ? "|  " : "   ");
+                System.out.print(this.walls.getWest(x, y) ? "|  " : "   ");
             }
-            System.out.println(this.westWalls[this.width][y] ? "|" : " ");
+            System.out.println(this.walls.getWest(this.width, y) ? "|" : " ");
         }
         printHorizontal(this.height);
     }
@@ -560,7 +1088,7 @@ public class Maze extends AbstractGraph<Integer> {
     private void printHorizontal(int y) {
         System.out.print("+");
         for (int x = 0; x < this.width; x++) {
-            System.out.print(this.northWalls[x][y] ? "--+" : "  +");
+            System.out.print(this.walls.getNorth(x, y) ? "--+" : "  +");
         }
         System.out.println();
     }
@@ -571,105 +1099,28 @@ public class Maze extends AbstractGraph<Integer> {
      * and their colour indicates whether the cell has been visited or not.
      * .svg files can be viewed with a regular browser
      * @param resourceName  name of the file to be generated
+     * @param vertices      optional vertices to be labeled with their number
      * @param path          optional search path with visited vertices to be coloured into the map
      */
-    private static final double LINE_WIDTH = 0.1;
-    private static final double FONT_SIZE = 0.3;
-    private static final String PATH_COLOUR = "lime";
-    private static final String VISITED_COLOUR = "red";
-    private static final String TEXT_COLOUR = "blue";
-    private static final String ENTRY_COLOUR = "orange";
-    private static final String EXIT_COLOUR = "green";
-
     public void svgDrawMap(String resourceName, Set<Integer> vertices, GPath path) {
         try {
-            //Path resources = Paths.get(this.getClass().getResource("/").getPath());
-            //String svgPath = resources.toAbsolutePath() + "/" + resourceName;
-            File svgFile = urlAsFile(getClass().getResource("/"), resourceName);
-            PrintStream svgWriter = new PrintStream(svgFile);
-
-            // header for an .svg file
-            svgWriter.println("<?xml version='1.0' standalone='no'?>");
-            // configure the viewBox to match the coordinate ranges of the Maze
-            svgWriter.printf("<svg width='20cm' height='20cm' viewBox='%d %d %d %d' preserveAspectRatio='xMidYMid'\n",
-                    -1, -1, this.width + 2, this.height + 2);
-            svgWriter.println("     version='1.1' xmlns='http://www.w3.org/2000/svg'>");
-
-            // draw the background colours of entry and exit nodes.
-            this.svgDrawEntryAndExit(svgWriter);
-
-            // draw the maze lay-out
-            for (int y = 0; y < this.height; y++) {
-                this.svgDrawHorizontal(svgWriter, y);
-                for (int x = 0; x <= this.width; x++) {
-                    if (this.westWalls[x][y])
-                        svgWriter.printf(Locale.ENGLISH, "<line x1='%d' y1='%d' x2='%d' y2='%d' stroke-width='%.3f' stroke='%s'/>\n",
-                                x, y, x, y + 1, LINE_WIDTH, "black");
-
-                }
-            }
-            this.svgDrawHorizontal(svgWriter, this.height);
-
-            // draw the solution path, if found
-            this.svgDrawPath(svgWriter, path, PATH_COLOUR);
-
-            // draw vertex numbers on top
-            if (vertices != null) {
-                for (int v : vertices) {
-                    double posX = this.posX(v) + 0.5;
-                    double posY = this.posY(v) + 0.5 + FONT_SIZE / 2;
-                    String colour = (path != null && path.getVisited().contains(v) ? VISITED_COLOUR : TEXT_COLOUR);
-                    svgWriter.printf(Locale.ENGLISH, "<text x='%.3f' y='%.3f' font-size='%.3f' fill='%s' text-anchor='middle'>%d</text>\n",
-                            posX, posY, FONT_SIZE, colour, v);
-                }
-            }
-
-            svgWriter.println("</svg>");
-        } catch (FileNotFoundException e) {
+            new MazeRenderer(this).svgDrawMap(urlAsFile(getClass().getResource("/"), resourceName), vertices, path);
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void svgDrawHorizontal(PrintStream svgWriter, int y) {
-        for (int x = 0; x < this.width; x++) {
-            if (this.northWalls[x][y])
-                svgWriter.printf(Locale.ENGLISH, "<line x1='%d' y1='%d' x2='%d' y2='%d' stroke-width='%.3f' stroke='%s'/>\n",
-                        x, y, x + 1, y, LINE_WIDTH, "black");
-        }
-    }
-
-    /**
-     * draws the startVertex and targetVertex of the maze in orange and green colour
-     * @param svgWriter
-     */
-    private void svgDrawEntryAndExit(PrintStream svgWriter) {
-        this.svgFillCell(svgWriter, posX(this.startNode), posY(this.startNode), ENTRY_COLOUR);
-        this.svgFillCell(svgWriter, posX(this.exitNode), posY(this.exitNode), EXIT_COLOUR);
-    }
-    private void svgFillCell(PrintStream svgWriter, int x, int y, String colour) {
-        svgWriter.printf(Locale.ENGLISH, "<rect x='%d' y='%d' width='1' height='1' fill-opacity='0.5' fill='%s'/>\n",
-                x, y, colour);
-    }
-
     /**
-     * draws the solution path in the maze
-     * @param svgWriter
-     * @param path
-     * @param colour
+     * produces a .png file in the target classpath folder, which depicts the maze lay-out with one pixel per cell,
+     * the vertices that have been visited by the search of the optional path, and the path itself
+     * @param resourceName  name of the file to be generated
+     * @param path          optional search path with visited vertices to be coloured into the map
      */
-    private void svgDrawPath(PrintStream svgWriter, GPath path, String colour) {
-        if (path == null) return;
-
-        double prevPosX = 0.0;
-        double prevPosY = 0.0;
-        for (Integer v : path.getVertices()) {
-            double posX = this.posX(v) + 0.5;
-            double posY = this.posY(v) + 0.5;
-            if (prevPosX > 0 && prevPosY > 0)
-                svgWriter.printf(Locale.ENGLISH, "<line x1='%.2f' y1='%.2f' x2='%.2f' y2='%.2f' stroke-width='%.3f' stroke='%s'/>\n",
-                        prevPosX, prevPosY, posX, posY, 2 * LINE_WIDTH, colour);
-            prevPosX = posX;
-            prevPosY = posY;
+    public void pngDrawMap(String resourceName, GPath path) {
+        try {
+            new MazeRenderer(this).pngDrawMap(urlAsFile(getClass().getResource("/"), resourceName), path);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
@@ -692,6 +1143,10 @@ public class Maze extends AbstractGraph<Integer> {
         return height;
     }
 
+    WallBitboard getWalls() {
+        return walls;
+    }
+
     public int getStartNode() {
         return startNode;
     }
@@ -0,0 +1,165 @@
+package maze_escape;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class MazeFile {
+
+    /**
+     * Compact binary file format of a Maze, which can be memory-mapped when it is loaded
+     * The file consists of a header of HEADER_SIZE bytes:
+     *      int magic, int width, int height, int startNode, int exitNode, followed by zero padding
+     * and thereafter all words of the WallBitboard of the maze, i.e. its packed north walls and west walls.
+     * All values are stored in little-endian byte order.
+     *
+     * Loading maps the file into memory without reading or copying the walls,
+     * such that huge mazes open in milliseconds and the operating system shares
+     * the pages of the file between all processes that load it read-only.
+     */
+    private static final int FILE_MAGIC = 0x4D415A31;  // "MAZ1"
+    static final int HEADER_SIZE = 32;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private MazeFile() {
+    }
+
+    /**
+     * writes the lay-out of the maze into a binary maze file
+     * @param maze
+     * @param file
+     * @throws IOException
+     */
+    public static void save(Maze maze, File file) throws IOException {
+        WallBitboard walls = maze.getWalls();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    fileSize(maze.getWidth(), maze.getHeight()));
+            buffer.order(BYTE_ORDER);
+            writeHeader(buffer, maze.getWidth(), maze.getHeight(), maze.getStartNode(), maze.getExitNode());
+            buffer.position(HEADER_SIZE);
+            buffer.slice().order(BYTE_ORDER).asLongBuffer().put(walls.getWords().duplicate().clear());
+            buffer.force();
+        }
+    }
+
+    /**
+     * streams a new random maze of Eller's algorithm row by row into a binary maze file
+     * without holding the maze in memory, such that the file can be much larger than the available heap.
+     * The maze gets an entry at the top-left position and an exit at the bottom-right position,
+     * like Maze.configureTopEntry()
+     * @param file
+     * @param width
+     * @param height
+     * @throws IOException
+     */
+    public static void generateEller(File file, int width, int height) throws IOException {
+        long westOffset = (long) (height + 1) * WallBitboard.numWords(width);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            writeHeader(header, width, height, 0, width * height - 1);
+            writeFully(channel, header, 0);
+
+            ByteBuffer northRow = ByteBuffer.allocate(WallBitboard.numWords(width) * Long.BYTES).order(BYTE_ORDER);
+            ByteBuffer westRow = ByteBuffer.allocate(WallBitboard.numWords(width + 1) * Long.BYTES).order(BYTE_ORDER);
+            new EllerMazeGenerator(width, height).generate(new EllerMazeGenerator.RowSink() {
+                @Override
+                public void northRow(int y, long[] words) {
+                    writeRow(channel, northRow, words, HEADER_SIZE + (long) y * northRow.capacity());
+                }
+
+                @Override
+                public void westRow(int y, long[] words) {
+                    writeRow(channel, westRow, words,
+                            HEADER_SIZE + westOffset * Long.BYTES + (long) y * westRow.capacity());
+                }
+            }, 0, width - 1);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeRow(FileChannel channel, ByteBuffer row, long[] words, long position) {
+        row.clear();
+        row.asLongBuffer().put(words);
+        try {
+            writeFully(channel, row, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * maps a maze file read-only into memory
+     * the walls of the resulting maze cannot be changed
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static Maze load(File file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * maps a maze file into memory
+     * @param file
+     * @param writable  if true, changes of walls are allowed, but kept private to the resulting maze
+     *                  (copy-on-write) and are not written back into the file
+     * @return
+     * @throws IOException
+     */
+    public static Maze load(File file, boolean writable) throws IOException {
+        // a private (copy-on-write) mapping requires a channel that is open for writing, even if nothing is written
+        try (FileChannel channel = writable
+                ? FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("File " + file + " has an invalid size for a maze file: " + size);
+            }
+            // the mapping remains valid after the channel has been closed
+            MappedByteBuffer buffer = channel.map(
+                    writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(BYTE_ORDER);
+            if (buffer.getInt(0) != FILE_MAGIC) {
+                throw new IOException("File " + file + " is not a maze file");
+            }
+            int width = buffer.getInt(4);
+            int height = buffer.getInt(8);
+            int startNode = buffer.getInt(12);
+            int exitNode = buffer.getInt(16);
+            if (width <= 0 || height <= 0 || size != fileSize(width, height)) {
+                throw new IOException(String.format("File %s does not match a %dx%d maze", file, width, height));
+            }
+
+            buffer.position(HEADER_SIZE);
+            WallBitboard walls = new WallBitboard(width, height, buffer.slice().order(BYTE_ORDER).asLongBuffer());
+            return new Maze(walls, startNode, exitNode);
+        }
+    }
+
+    static long fileSize(int width, int height) {
+        return HEADER_SIZE + (long) WallBitboard.numWords(width, height) * Long.BYTES;
+    }
+
+    static void writeHeader(ByteBuffer buffer, int width, int height, int startNode, int exitNode) {
+        buffer.putInt(0, FILE_MAGIC);
+        buffer.putInt(4, width);
+        buffer.putInt(8, height);
+        buffer.putInt(12, startNode);
+        buffer.putInt(16, exitNode);
+    }
+}
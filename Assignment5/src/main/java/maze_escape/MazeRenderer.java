@@ -0,0 +1,259 @@
+package maze_escape;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+public class MazeRenderer {
+
+    /**
+     * Renders the lay-out of a maze, together with an optional search path and its visited vertices,
+     * into an .svg vector image or a .png raster image, at a speed that suits mazes of millions of cells.
+     *
+     * The .svg image merges every run of adjacent collinear walls into a single segment of a <path> element
+     * and is written through a large buffer, without formatting the coordinates of walls, paths and labels by printf.
+     * The .png image uses one pixel per cell and one pixel per wall (and wall corner)
+     * i.e. (2*width+1) x (2*height+1) pixels of a 16-colour palette, at 4 bits per pixel.
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private static final String LINE_WIDTH = "0.1";
+    private static final String PATH_WIDTH = "0.2";
+    private static final String FONT_SIZE = "0.3";
+    private static final String LABEL_BASELINE = ".65";    // 0.5 + FONT_SIZE / 2, centres the label in its cell
+    private static final String WALL_COLOUR = "black";
+    private static final String PATH_COLOUR = "lime";
+    private static final String VISITED_COLOUR = "red";
+    private static final String TEXT_COLOUR = "blue";
+    private static final String ENTRY_COLOUR = "orange";
+    private static final String EXIT_COLOUR = "green";
+
+    // the palette of the .png image
+    private static final int PNG_OPEN = 0;
+    private static final int PNG_WALL = 1;
+    private static final int PNG_VISITED = 2;
+    private static final int PNG_PATH = 3;
+    private static final int PNG_ENTRY = 4;
+    private static final int PNG_EXIT = 5;
+    private static final int[] PNG_PALETTE = {
+            0xFFFFFF,       // open: white
+            0x000000,       // wall: black
+            0xFFB0B0,       // visited: light red
+            0x00FF00,       // path: lime
+            0xFFA500,       // entry: orange
+            0x008000,       // exit: green
+    };
+
+    private final Maze maze;
+    private final WallBitboard walls;
+    private final int width;
+    private final int height;
+
+    public MazeRenderer(Maze maze) {
+        this.maze = maze;
+        this.walls = maze.getWalls();
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+    }
+
+    /**
+     * produces an .svg file which depicts the maze lay-out and the optional solution path
+     * optionally also the vertex numbers of the cells are shown
+     * and their colour indicates whether the cell has been visited or not.
+     * .svg files can be viewed with a regular browser
+     * @param svgFile   the file to be generated
+     * @param vertices  optional vertices to be labeled with their number
+     * @param path      optional search path with visited vertices to be coloured into the map
+     * @throws IOException
+     */
+    public void svgDrawMap(File svgFile, Set<Integer> vertices, AbstractGraph<Integer>.GPath path) throws IOException {
+        try (FileChannel channel = FileChannel.open(svgFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer svgWriter = new BufferedWriter(new OutputStreamWriter(
+                     Channels.newOutputStream(channel), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+
+            // header for an .svg file
+            svgWriter.write("<?xml version='1.0' standalone='no'?>\n");
+            // configure the viewBox to match the coordinate ranges of the Maze
+            svgWriter.write("<svg width='20cm' height='20cm' viewBox='-1 -1 " + (this.width + 2) + " " +
+                    (this.height + 2) + "' preserveAspectRatio='xMidYMid'\n");
+            svgWriter.write("     version='1.1' xmlns='http://www.w3.org/2000/svg'>\n");
+
+            // draw the background colours of entry and exit nodes.
+            this.svgFillCell(svgWriter, this.maze.getStartNode(), ENTRY_COLOUR);
+            this.svgFillCell(svgWriter, this.maze.getExitNode(), EXIT_COLOUR);
+
+            // draw the maze lay-out
+            this.svgDrawWalls(svgWriter);
+
+            // draw the solution path, if found
+            this.svgDrawPath(svgWriter, path);
+
+            // draw vertex numbers on top
+            if (vertices != null) {
+                for (int v : vertices) {
+                    String colour = (path != null && path.getVisited().contains(v) ? VISITED_COLOUR : TEXT_COLOUR);
+                    svgWriter.write("<text x='" + (v % this.width) + ".5' y='" + (v / this.width) + LABEL_BASELINE +
+                            "' font-size='" + FONT_SIZE + "' fill='" + colour + "' text-anchor='middle'>" + v + "</text>\n");
+                }
+            }
+
+            svgWriter.write("</svg>\n");
+        }
+    }
+
+    /**
+     * draws all walls in two <path> elements: one with the horizontal runs of north walls along each row
+     * and one with the vertical runs of west walls along each column
+     * @param svgWriter
+     * @throws IOException
+     */
+    private void svgDrawWalls(Writer svgWriter) throws IOException {
+        svgWriter.write("<path fill='none' stroke-width='" + LINE_WIDTH + "' stroke='" + WALL_COLOUR + "' d='");
+        for (int y = 0; y <= this.height; y++) {
+            int x = 0;
+            while (x < this.width) {
+                if (!this.walls.getNorth(x, y)) {
+                    x++;
+                    continue;
+                }
+                int runStart = x;
+                while (x < this.width && this.walls.getNorth(x, y)) x++;
+                svgWriter.write("M" + runStart + " " + y + "H" + x);
+            }
+            svgWriter.write('\n');
+        }
+        svgWriter.write("'/>\n");
+
+        svgWriter.write("<path fill='none' stroke-width='" + LINE_WIDTH + "' stroke='" + WALL_COLOUR + "' d='");
+        for (int x = 0; x <= this.width; x++) {
+            int y = 0;
+            while (y < this.height) {
+                if (!this.walls.getWest(x, y)) {
+                    y++;
+                    continue;
+                }
+                int runStart = y;
+                while (y < this.height && this.walls.getWest(x, y)) y++;
+                svgWriter.write("M" + x + " " + runStart + "V" + y);
+            }
+            svgWriter.write('\n');
+        }
+        svgWriter.write("'/>\n");
+    }
+
+    private void svgFillCell(Writer svgWriter, int cell, String colour) throws IOException {
+        svgWriter.write("<rect x='" + (cell % this.width) + "' y='" + (cell / this.width) +
+                "' width='1' height='1' fill-opacity='0.5' fill='" + colour + "'/>\n");
+    }
+
+    /**
+     * draws the solution path in the maze as a single polyline through the centres of its vertices
+     * @param svgWriter
+     * @param path
+     * @throws IOException
+     */
+    private void svgDrawPath(Writer svgWriter, AbstractGraph<Integer>.GPath path) throws IOException {
+        if (path == null || path.getVertices().isEmpty()) return;
+
+        svgWriter.write("<path fill='none' stroke-width='" + PATH_WIDTH + "' stroke='" + PATH_COLOUR + "' d='");
+        char command = 'M';
+        for (int v : path.getVertices()) {
+            svgWriter.write(command + String.valueOf(v % this.width) + ".5 " + (v / this.width) + ".5");
+            command = 'L';
+        }
+        svgWriter.write("'/>\n");
+    }
+
+    /**
+     * produces a .png file which depicts the maze lay-out, the vertices visited by the search of the path
+     * and the cells along the path itself
+     * @param pngFile   the file to be generated
+     * @param path      optional search path with visited vertices to be coloured into the map
+     * @throws IOException
+     */
+    public void pngDrawMap(File pngFile, AbstractGraph<Integer>.GPath path) throws IOException {
+        byte[] reds = new byte[PNG_PALETTE.length];
+        byte[] greens = new byte[PNG_PALETTE.length];
+        byte[] blues = new byte[PNG_PALETTE.length];
+        for (int i = 0; i < PNG_PALETTE.length; i++) {
+            reds[i] = (byte) (PNG_PALETTE[i] >> 16);
+            greens[i] = (byte) (PNG_PALETTE[i] >> 8);
+            blues[i] = (byte) PNG_PALETTE[i];
+        }
+        BufferedImage image = new BufferedImage(2 * this.width + 1, 2 * this.height + 1,
+                BufferedImage.TYPE_BYTE_BINARY, new IndexColorModel(4, PNG_PALETTE.length, reds, greens, blues));
+        WritableRaster raster = image.getRaster();
+
+        // draw the maze lay-out, every wall corner is drawn if any wall touches it
+        for (int y = 0; y <= this.height; y++) {
+            for (int x = 0; x <= this.width; x++) {
+                boolean north = x < this.width && this.walls.getNorth(x, y);
+                boolean west = y < this.height && this.walls.getWest(x, y);
+                if (north) raster.setSample(2 * x + 1, 2 * y, 0, PNG_WALL);
+                if (west) raster.setSample(2 * x, 2 * y + 1, 0, PNG_WALL);
+                if (north || west ||
+                        (x > 0 && this.walls.getNorth(x - 1, y)) ||
+                        (y > 0 && this.walls.getWest(x, y - 1))) {
+                    raster.setSample(2 * x, 2 * y, 0, PNG_WALL);
+                }
+            }
+        }
+
+        if (path != null) {
+            for (int v : path.getVisited()) {
+                this.pngFillCell(raster, v, PNG_VISITED);
+            }
+
+            // trace the passages between the vertices of the path cell by cell
+            int previous = -1;
+            for (int v : path.getVertices()) {
+                if (previous < 0) {
+                    this.pngFillCell(raster, v, PNG_PATH);
+                } else {
+                    int[] passage = this.maze.tracePassage(previous, v);
+                    if (passage == null) passage = new int[] { v };
+                    for (int cell : passage) {
+                        this.pngFillPassage(raster, previous, cell);
+                        previous = cell;
+                    }
+                }
+                previous = v;
+            }
+        }
+
+        this.pngFillCell(raster, this.maze.getStartNode(), PNG_ENTRY);
+        this.pngFillCell(raster, this.maze.getExitNode(), PNG_EXIT);
+
+        if (!ImageIO.write(image, "png", pngFile)) {
+            throw new IOException("No image writer available for .png files");
+        }
+    }
+
+    private void pngFillCell(WritableRaster raster, int cell, int colour) {
+        raster.setSample(2 * (cell % this.width) + 1, 2 * (cell / this.width) + 1, 0, colour);
+    }
+
+    /**
+     * fills the cell and the opening towards the previous cell, if they are direct neighbours
+     */
+    private void pngFillPassage(WritableRaster raster, int previousCell, int cell) {
+        int x = cell % this.width, y = cell / this.width;
+        int previousX = previousCell % this.width, previousY = previousCell / this.width;
+        if (Math.abs(x - previousX) + Math.abs(y - previousY) == 1) {
+            raster.setSample(x + previousX + 1, y + previousY + 1, 0, PNG_PATH);
+        }
+        raster.setSample(2 * x + 1, 2 * y + 1, 0, PNG_PATH);
+    }
+}
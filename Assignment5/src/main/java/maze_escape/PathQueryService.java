@@ -0,0 +1,81 @@
+package maze_escape;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class PathQueryService {
+
+    /**
+     * Answers batches of shortest path queries between pairs of vertices of one compiled JunctionGraph
+     * The graph is immutable, so all queries of a batch are solved in parallel by the common ForkJoinPool
+     * Every search borrows the scratch state of an earlier search from a pool of scratches,
+     * such that a batch allocates one scratch per concurrently running search instead of new state per query.
+     * The searches do not track their visited vertices.
+     */
+    public static class Query {
+        private final int startVertex;
+        private final int targetVertex;
+
+        public Query(int startVertex, int targetVertex) {
+            this.startVertex = startVertex;
+            this.targetVertex = targetVertex;
+        }
+
+        public int getStartVertex() {
+            return this.startVertex;
+        }
+
+        public int getTargetVertex() {
+            return this.targetVertex;
+        }
+
+        @Override
+        public String toString() {
+            return this.startVertex + "->" + this.targetVertex;
+        }
+    }
+
+    private final JunctionGraph graph;
+    private final boolean guided;
+    private final Queue<JunctionGraph.SearchScratch> scratches = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param graph
+     * @param guided    use A* with the manhattan distance as heuristic, instead of Dijkstra's algorithm
+     */
+    public PathQueryService(JunctionGraph graph, boolean guided) {
+        this.graph = graph;
+        this.guided = guided;
+    }
+
+    /**
+     * solves a single query with reused scratch state
+     * @param query
+     * @return the shortest path from the start vertex to the target vertex of the query, without visited vertices
+     * or null if the target cannot be reached from the start
+     */
+    public IntPath shortestPath(Query query) {
+        JunctionGraph.SearchScratch scratch = this.scratches.poll();
+        if (scratch == null) scratch = this.graph.newSearchScratch();
+        try {
+            return this.graph.shortestPath(query.getStartVertex(), query.getTargetVertex(), this.guided, scratch);
+        } finally {
+            this.scratches.offer(scratch);
+        }
+    }
+
+    /**
+     * solves all queries in parallel
+     * the results are produced lazily, while the returned stream is being consumed
+     * @param queries
+     * @return a parallel stream of the shortest paths of all queries, in the encounter order of the queries
+     * with null for a query of which the target cannot be reached from the start
+     */
+    public Stream<IntPath> shortestPaths(List<Query> queries) {
+        return IntStream.range(0, queries.size()).parallel()
+                .mapToObj(i -> this.shortestPath(queries.get(i)));
+    }
+}
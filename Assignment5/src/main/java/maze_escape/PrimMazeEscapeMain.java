@@ -1,5 +1,10 @@
 package maze_escape;
 
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.function.BiFunction;
 
@@ -9,6 +14,7 @@ public class PrimMazeEscapeMain {
     private static final int WIDTH = 100;
     private static final int HEIGHT = WIDTH;
     private static final int REMOVE = 250;
+    private static final int NUM_QUERIES = 1000;
 
     public static void main(String[] args) {
         System.out.println("Welcome to the HvA Maze Escape");
@@ -23,16 +29,42 @@ public class PrimMazeEscapeMain {
 
         //maze.print();
         Set<Integer> vertices = maze.getAllVertices(maze.getStartNode());
+        ComponentLabels components = maze.getComponentLabels();
 
-        System.out.printf("Maze-Graph contains %d connected vertices in %d cells\n",
-                vertices.size(), maze.getNumberOfCells());
+        System.out.printf("Maze-Graph contains %d connected vertices in %d cells, in %d components, solvable: %b\n",
+                vertices.size(), maze.getNumberOfCells(), components.getNumComponents(), maze.isSolvable());
         //System.out.println(maze.formatAdjacencyList(maze.getStartNode()));
 
         doPathSearches(maze, "Depth First Search", maze::depthFirstSearch, vertices);
         doPathSearches(maze, "Breadth First Search", maze::breadthFirstSearch, vertices);
         doPathSearches(maze, "Dijkstra Shortest Path",
                 (v1,v2)-> maze.dijkstraShortestPath(v1,v2,maze::manhattanTime), vertices);
+        doPathSearches(maze, "AStar Shortest Path",
+                (v1,v2)-> maze.aStarShortestPath(v1,v2,maze::manhattanTime), vertices);
+        doPathSearches(maze, "Bidirectional Breadth First Search", maze::bidirectionalBreadthFirstSearch, vertices);
+        doPathSearches(maze, "Bidirectional Dijkstra Shortest Path",
+                (v1,v2)-> maze.bidirectionalDijkstraShortestPath(v1,v2,maze::manhattanTime), vertices);
 
+        doBatchQueries(maze, NUM_QUERIES);
+    }
+
+    private static void doBatchQueries(Maze maze, int numQueries) {
+        // query the escape from random junctions of the compiled graph
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        Random random = new Random(SEED);
+        List<PathQueryService.Query> queries = new ArrayList<>();
+        for (int q = 0; q < numQueries; q++) {
+            queries.add(new PathQueryService.Query(
+                    junctionGraph.cellOf(random.nextInt(junctionGraph.getNumVertices())), maze.getExitNode()));
+        }
+
+        long started = System.nanoTime();
+        DoubleSummaryStatistics weights = new PathQueryService(junctionGraph, true).shortestPaths(queries)
+                .filter(Objects::nonNull)
+                .mapToDouble(IntPath::getTotalWeight)
+                .summaryStatistics();
+        System.out.printf("\nBatch of %d escape queries found %d paths with average weight %.2f in %.1f ms\n",
+                numQueries, weights.getCount(), weights.getAverage(), (System.nanoTime() - started) / 1E6);
     }
 
     private static void doPathSearches(Maze maze, String title, BiFunction<Integer,Integer,Maze.GPath> searcher, Set<Integer> vertices) {
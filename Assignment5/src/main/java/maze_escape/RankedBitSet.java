@@ -0,0 +1,76 @@
+package maze_escape;
+
+class RankedBitSet {
+
+    /**
+     * A fixed-capacity set of non-negative integers, one bit per possible element,
+     * which supports selection of the k-th smallest element in O(log capacity)
+     * A Fenwick tree over the population counts of the words of the bits keeps track of the ranks,
+     * such that a uniformly random element can be drawn as select(randomizer.nextInt(size()))
+     */
+    private final long[] words;
+    private final int[] counts;     // Fenwick tree of the number of elements per word, indexed from 1
+    private int size;
+
+    RankedBitSet(int capacity) {
+        this.words = new long[(capacity + Long.SIZE - 1) / Long.SIZE];
+        this.counts = new int[this.words.length + 1];
+    }
+
+    boolean get(int element) {
+        return (this.words[element >>> 6] & (1L << element)) != 0;
+    }
+
+    /**
+     * adds or removes an element
+     * @param element
+     * @param value     use true to add, false to remove
+     */
+    void set(int element, boolean value) {
+        int w = element >>> 6;
+        long word = this.words[w];
+        long newWord = value ? word | (1L << element) : word & ~(1L << element);
+        if (newWord == word) return;
+
+        this.words[w] = newWord;
+        int delta = value ? 1 : -1;
+        this.size += delta;
+        for (int i = w + 1; i < this.counts.length; i += i & -i) {
+            this.counts[i] += delta;
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @param rank  0 <= rank < size()
+     * @return the element that has exactly rank smaller elements in the set
+     */
+    int select(int rank) {
+        if (rank < 0 || rank >= this.size) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " is out of bounds of a set of size " + this.size);
+        }
+
+        // descend the Fenwick tree to the last word with less than rank elements before it
+        int w = 0;
+        for (int step = Integer.highestOneBit(this.words.length); step > 0; step >>>= 1) {
+            if (w + step < this.counts.length && this.counts[w + step] <= rank) {
+                w += step;
+                rank -= this.counts[w];
+            }
+        }
+
+        // drop the lowest elements of the word until the selected element is the lowest
+        long word = this.words[w];
+        for (; rank > 0; rank--) {
+            word &= word - 1;
+        }
+        return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+    }
+}
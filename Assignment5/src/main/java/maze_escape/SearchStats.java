@@ -0,0 +1,219 @@
+package maze_escape;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class SearchStats {
+
+    /**
+     * Counters and wall-clock timings of the latest search on an AbstractGraph, to explain why a query is slow
+     * Register an instance with AbstractGraph.setSearchStats() to switch the instrumentation on.
+     * Without registered stats the searches skip all counting and timing, at the cost of a null-check per event.
+     *
+     * Every search restarts the counters, and finishes them when it returns its path.
+     * The stats of every finished search can be exported as one line of JSON (JSON lines),
+     * and are appended to the optional output that has been given to the constructor.
+     * An instance is not thread-safe, it shall not be shared by concurrent searches.
+     */
+    private final Appendable jsonLines;
+
+    private String search;
+    private long nodesSettled;      // vertices that have been taken from the frontier to be expanded
+    private long edgesRelaxed;      // edges towards neighbours that have been examined, including settled ones
+    private long heapPushes;        // insertions into the frontier (priority) queue, or decreased keys
+    private long heapPops;          // removals from the frontier (priority) queue
+    private long neighbourCalls;    // calls of getNeighbours()
+    private int peakFrontier;       // the largest size of the frontier during the search
+    private boolean found;
+    private int pathLength;
+    private double pathWeight;
+
+    // the elapsed nanoseconds per phase of the search, in order of the phases
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private String phase;
+    private long phaseStarted;
+
+    public SearchStats() {
+        this(null);
+    }
+
+    /**
+     * @param jsonLines     receives a line of JSON with the stats of every finished search, or null
+     */
+    public SearchStats(Appendable jsonLines) {
+        this.jsonLines = jsonLines;
+    }
+
+    /**
+     * restarts all counters for a new search, and starts its first phase
+     * @param search    the name of the search algorithm
+     */
+    void start(String search) {
+        this.search = search;
+        this.nodesSettled = 0;
+        this.edgesRelaxed = 0;
+        this.heapPushes = 0;
+        this.heapPops = 0;
+        this.neighbourCalls = 0;
+        this.peakFrontier = 0;
+        this.found = false;
+        this.pathLength = 0;
+        this.pathWeight = 0.0;
+        this.phaseNanos.clear();
+        this.phase = null;
+        this.startPhase("search");
+    }
+
+    /**
+     * ends the current phase of the search and starts the next one
+     * @param phase
+     */
+    void startPhase(String phase) {
+        long now = System.nanoTime();
+        this.endPhase(now);
+        this.phase = phase;
+        this.phaseStarted = now;
+    }
+
+    private void endPhase(long now) {
+        if (this.phase != null) this.phaseNanos.merge(this.phase, now - this.phaseStarted, Long::sum);
+        this.phase = null;
+    }
+
+    void nodeSettled() {
+        this.nodesSettled++;
+    }
+
+    void edgeRelaxed() {
+        this.edgesRelaxed++;
+    }
+
+    void heapPushed() {
+        this.heapPushes++;
+    }
+
+    void heapPushed(int count) {
+        this.heapPushes += count;
+    }
+
+    void heapPopped() {
+        this.heapPops++;
+    }
+
+    void neighboursCalled() {
+        this.neighbourCalls++;
+    }
+
+    void frontierSize(int size) {
+        if (size > this.peakFrontier) this.peakFrontier = size;
+    }
+
+    /**
+     * ends the last phase of the search, registers its result and writes its JSON line
+     * @param found         whether the search has found a path
+     * @param pathLength    the number of vertices of the path
+     * @param pathWeight    the total weight of the path
+     */
+    void finish(boolean found, int pathLength, double pathWeight) {
+        this.endPhase(System.nanoTime());
+        this.found = found;
+        this.pathLength = pathLength;
+        this.pathWeight = pathWeight;
+        if (this.jsonLines == null) return;
+        try {
+            this.jsonLines.append(this.toJson()).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String getSearch() {
+        return this.search;
+    }
+
+    public long getNodesSettled() {
+        return this.nodesSettled;
+    }
+
+    public long getEdgesRelaxed() {
+        return this.edgesRelaxed;
+    }
+
+    public long getHeapPushes() {
+        return this.heapPushes;
+    }
+
+    public long getHeapPops() {
+        return this.heapPops;
+    }
+
+    public long getNeighbourCalls() {
+        return this.neighbourCalls;
+    }
+
+    public int getPeakFrontier() {
+        return this.peakFrontier;
+    }
+
+    public boolean isFound() {
+        return this.found;
+    }
+
+    public int getPathLength() {
+        return this.pathLength;
+    }
+
+    public double getPathWeight() {
+        return this.pathWeight;
+    }
+
+    /**
+     * @param phase
+     * @return the elapsed nanoseconds of the given phase of the latest search, or 0 if it has no such phase
+     */
+    public long getPhaseNanos(String phase) {
+        return this.phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * @return the elapsed nanoseconds of all phases of the latest search together
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : this.phaseNanos.values()) total += nanos;
+        return total;
+    }
+
+    /**
+     * formats the stats of the latest search as a single line JSON object
+     * @return
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"search\":\"").append(this.search).append('"');
+        sb.append(",\"found\":").append(this.found);
+        sb.append(",\"pathLength\":").append(this.pathLength);
+        sb.append(",\"pathWeight\":").append(String.format(Locale.ROOT, "%.2f", this.pathWeight));
+        sb.append(",\"nodesSettled\":").append(this.nodesSettled);
+        sb.append(",\"edgesRelaxed\":").append(this.edgesRelaxed);
+        sb.append(",\"heapPushes\":").append(this.heapPushes);
+        sb.append(",\"heapPops\":").append(this.heapPops);
+        sb.append(",\"neighbourCalls\":").append(this.neighbourCalls);
+        sb.append(",\"peakFrontier\":").append(this.peakFrontier);
+        sb.append(",\"phaseNanos\":{");
+        String separator = "";
+        for (Map.Entry<String, Long> phase : this.phaseNanos.entrySet()) {
+            sb.append(separator).append('"').append(phase.getKey()).append("\":").append(phase.getValue());
+            separator = ",";
+        }
+        sb.append("},\"totalNanos\":").append(this.getTotalNanos()).append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.toJson();
+    }
+}
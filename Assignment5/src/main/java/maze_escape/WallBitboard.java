@@ -0,0 +1,165 @@
+package maze_escape;
+
+import java.nio.LongBuffer;
+
+class WallBitboard {
+
+    /**
+     * Bit-packed storage of the north walls and west walls of a Maze, one bit per wall
+     * (i.e. two bits per cell) instead of a boolean per wall in a two-dimensional array.
+     *
+     * The walls are stored in rows of 64-bit words:
+     *  - height+1 rows of north walls, each with northStride words covering x = 0 .. width-1
+     *  - height rows of west walls, each with westStride words covering x = 0 .. width
+     * Bit (x % 64) of word (x / 64) of a row represents the wall at x.
+     * Every row starts at a fresh word, such that complete rows of walls can be combined with shift/and/or operations.
+     * Padding bits beyond the last wall of a row are always zero.
+     *
+     * The words are held in a LongBuffer, which can be backed by a long[] on the heap or by (mapped) off-heap memory.
+     */
+    static final int WORD_BITS = Long.SIZE;
+
+    final int width;
+    final int height;
+    final int northStride;      // number of words per row of north walls
+    final int westStride;       // number of words per row of west walls
+    final int westOffset;       // index of the first word of the west walls
+    private final LongBuffer words;
+
+    WallBitboard(int width, int height) {
+        this(width, height, null);
+    }
+
+    /**
+     * @param width
+     * @param height
+     * @param words     an existing buffer of numWords(width,height) words to use as storage,
+     *                  or null to allocate a new buffer on the heap without any walls
+     */
+    WallBitboard(int width, int height, LongBuffer words) {
+        this.width = width;
+        this.height = height;
+        this.northStride = numWords(width);
+        this.westStride = numWords(width + 1);
+        this.westOffset = (height + 1) * this.northStride;
+        int numWords = numWords(width, height);
+        if (words == null) {
+            words = LongBuffer.wrap(new long[numWords]);
+        } else if (words.capacity() != numWords) {
+            throw new IllegalArgumentException(String.format(
+                    "Wall storage of %d words does not fit a %dx%d maze", words.capacity(), width, height));
+        }
+        this.words = words;
+    }
+
+    /**
+     * @return the number of words needed to store the walls of a maze with given dimensions
+     */
+    static int numWords(int width, int height) {
+        long numWords = (long) (height + 1) * numWords(width) + (long) height * numWords(width + 1);
+        if (numWords > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("A %dx%d maze is too large", width, height));
+        }
+        return (int) numWords;
+    }
+
+    /**
+     * @return the number of words needed to store a row of numBits walls
+     */
+    static int numWords(int numBits) {
+        return (numBits + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    boolean getNorth(int x, int y) {
+        return (this.words.get(y * this.northStride + (x >>> 6)) & (1L << x)) != 0;
+    }
+
+    boolean getWest(int x, int y) {
+        return (this.words.get(this.westOffset + y * this.westStride + (x >>> 6)) & (1L << x)) != 0;
+    }
+
+    void setNorth(int x, int y, boolean value) {
+        this.setBit(y * this.northStride + (x >>> 6), x, value);
+    }
+
+    void setWest(int x, int y, boolean value) {
+        this.setBit(this.westOffset + y * this.westStride + (x >>> 6), x, value);
+    }
+
+    private void setBit(int index, int bit, boolean value) {
+        long word = this.words.get(index);
+        this.words.put(index, value ? word | (1L << bit) : word & ~(1L << bit));
+    }
+
+    /**
+     * creates or removes all walls
+     * @param value
+     */
+    void fill(boolean value) {
+        for (int y = 0; y <= this.height; y++) {
+            this.fillRow(y * this.northStride, this.northStride, this.width, value);
+        }
+        for (int y = 0; y < this.height; y++) {
+            this.fillRow(this.westOffset + y * this.westStride, this.westStride, this.width + 1, value);
+        }
+    }
+
+    private void fillRow(int index, int stride, int numBits, boolean value) {
+        for (int w = 0; w < stride; w++) {
+            this.words.put(index + w, value ? rowMask(w, numBits) : 0L);
+        }
+    }
+
+    /**
+     * @return a mask of the valid bits in word w of a row of numBits walls
+     */
+    static long rowMask(int w, int numBits) {
+        int bitsInWord = numBits - w * WORD_BITS;
+        return bitsInWord >= WORD_BITS ? -1L : (1L << bitsInWord) - 1;
+    }
+
+    /**
+     * @return word w of the row of north walls at y
+     */
+    long northWord(int y, int w) {
+        return this.words.get(y * this.northStride + w);
+    }
+
+    /**
+     * @return word w of the row of west walls at y
+     */
+    long westWord(int y, int w) {
+        return this.words.get(this.westOffset + y * this.westStride + w);
+    }
+
+    /**
+     * replaces the complete row of north walls at y
+     * @param y
+     * @param rowWords  northStride words with the walls of the row
+     */
+    void setNorthRow(int y, long[] rowWords) {
+        this.words.put(y * this.northStride, rowWords, 0, this.northStride);
+    }
+
+    /**
+     * replaces the complete row of west walls at y
+     * @param y
+     * @param rowWords  westStride words with the walls of the row
+     */
+    void setWestRow(int y, long[] rowWords) {
+        this.words.put(this.westOffset + y * this.westStride, rowWords, 0, this.westStride);
+    }
+
+    /**
+     * @return a copy of all walls on the heap
+     */
+    WallBitboard copy() {
+        WallBitboard copy = new WallBitboard(this.width, this.height);
+        copy.words.put(0, this.words, 0, this.words.capacity());
+        return copy;
+    }
+
+    LongBuffer getWords() {
+        return this.words;
+    }
+}
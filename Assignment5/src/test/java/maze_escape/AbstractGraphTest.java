@@ -151,4 +151,126 @@ class AbstractGraphTest {
         AbstractGraph.GPath path = europe.dijkstraShortestPath(uk,hu, Country::distanceTo);
         assertNull(path);
     }
+
+    @Test
+    void aStarShortestPathShouldFindPathAndVisited() {
+        AbstractGraph.GPath path = europe.aStarShortestPath(uk,lux, Country::distanceTo, (c1,c2) -> 0.0);
+        assertNotNull(path);
+        assertSame(uk, path.getVertices().peek(),
+                "First country in path should match the start");
+        assertSame(lux, path.getVertices().stream().reduce((c1,c2)->c2).get(),
+                "Last country in path should match the target");
+        assertEquals(130.0, path.getTotalWeight(), 0.0001);
+        assertEquals(3, path.getVertices().size());
+        assertTrue(path.getVisited().size() >= path.getVertices().size());
+    }
+
+    @Test
+    void aStarShortestPathShouldWorkWhenStartIsTarget() {
+        AbstractGraph.GPath path = europe.aStarShortestPath(hu,hu, Country::distanceTo, (c1,c2) -> 0.0);
+        assertNotNull(path);
+        assertEquals(hu, path.getVertices().peek());
+        assertEquals(0.0, path.getTotalWeight(), 0.0001);
+        assertEquals(1, path.getVertices().size());
+        assertEquals(1, path.getVisited().size());
+    }
+
+    @Test
+    void aStarShortestPathShouldDetectUnconnected() {
+        AbstractGraph.GPath path = europe.aStarShortestPath(uk,hu, Country::distanceTo, (c1,c2) -> 0.0);
+        assertNull(path);
+    }
+
+    @Test
+    void depthFirstSearchShouldHandleDeepGraphs() {
+        final int length = 100000;
+        Country first = new Country("C0");
+        Country last = first;
+        for (int i = 1; i < length; i++) {
+            Country next = new Country("C" + i);
+            last.addBorder(next, 1);
+            last = next;
+        }
+
+        AbstractGraph.GPath path = europe.depthFirstSearch(first, last);
+        assertNotNull(path);
+        assertEquals(length, path.getVertices().size());
+        assertSame(last, path.getVertices().stream().reduce((c1,c2)->c2).get());
+        assertEquals(length, europe.getAllVertices(last).size());
+        assertTrue(europe.formatAdjacencyList(first).endsWith("C" + (length - 1) + ": [C" + (length - 2) + "]\n"));
+    }
+
+    @Test
+    void bidirectionalBreadthFirstSearchShouldFindPathAndVisited() {
+        AbstractGraph.GPath path = europe.bidirectionalBreadthFirstSearch(uk,lux);
+        assertNotNull(path);
+        assertSame(uk, path.getVertices().peek(),
+                "First country in path should match the start");
+        assertSame(lux, path.getVertices().stream().reduce((c1,c2)->c2).get(),
+                "Last country in path should match the target");
+        assertEquals(3, path.getVertices().size());
+        assertTrue(path.getVisited().containsAll(path.getVertices()));
+        assertNotNull(europe.bidirectionalBreadthFirstSearch(hu,hu));
+        assertNull(europe.bidirectionalBreadthFirstSearch(uk,hu));
+    }
+
+    @Test
+    void bidirectionalDijkstraShortestPathShouldFindPathAndVisited() {
+        AbstractGraph.GPath path = europe.bidirectionalDijkstraShortestPath(uk,lux, Country::distanceTo);
+        assertNotNull(path);
+        assertSame(uk, path.getVertices().peek(),
+                "First country in path should match the start");
+        assertSame(lux, path.getVertices().stream().reduce((c1,c2)->c2).get(),
+                "Last country in path should match the target");
+        assertEquals(130.0, path.getTotalWeight(), 0.0001);
+        assertEquals(3, path.getVertices().size());
+        assertTrue(path.getVisited().size() >= path.getVertices().size());
+
+        path = europe.bidirectionalDijkstraShortestPath(hu,hu, Country::distanceTo);
+        assertEquals(0.0, path.getTotalWeight(), 0.0001);
+        assertEquals(1, path.getVertices().size());
+        assertNull(europe.bidirectionalDijkstraShortestPath(uk,hu, Country::distanceTo));
+    }
+
+    @Test
+    void searchStatsShouldRecordEverySearchAsAJsonLine() {
+        StringBuilder jsonLines = new StringBuilder();
+        SearchStats stats = new SearchStats(jsonLines);
+        europe.setSearchStats(stats);
+
+        AbstractGraph.GPath path = europe.dijkstraShortestPath(uk,lux, Country::distanceTo);
+        assertEquals("dijkstraShortestPath", stats.getSearch());
+        assertTrue(stats.isFound());
+        assertEquals(3, stats.getPathLength());
+        assertEquals(130.0, stats.getPathWeight(), 0.0001);
+        assertEquals(path.getVisited().size(), stats.getNodesSettled());
+        assertEquals(stats.getNodesSettled(), stats.getHeapPops());
+        assertEquals(stats.getNodesSettled() - 1, stats.getNeighbourCalls());
+        assertTrue(stats.getHeapPushes() >= stats.getHeapPops());
+        // every edge from an expanded vertex is counted, also when it leads back to a settled vertex
+        int examinedEdges = 0;
+        for (Object visited : path.getVisited()) {
+            if (visited != lux) examinedEdges += europe.getNeighbours((Country) visited).size();
+        }
+        assertEquals(examinedEdges, stats.getEdgesRelaxed());
+        assertTrue(stats.getPeakFrontier() > 0);
+        assertTrue(stats.getTotalNanos() >= stats.getPhaseNanos("search") + stats.getPhaseNanos("path"));
+
+        europe.breadthFirstSearch(uk,hu);
+        assertEquals("breadthFirstSearch", stats.getSearch());
+        assertFalse(stats.isFound());
+        assertEquals(europe.getAllVertices(uk).size(), stats.getNodesSettled());
+
+        String[] lines = jsonLines.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"search\":\"dijkstraShortestPath\",\"found\":true,\"pathLength\":3,"));
+        assertTrue(lines[1].contains("\"found\":false") && lines[1].endsWith("}"));
+        assertEquals(stats.toJson(), lines[1]);
+
+        // searches are no longer recorded after the stats have been switched off
+        europe.setSearchStats(null);
+        europe.aStarShortestPath(uk,lux, Country::distanceTo, (c1,c2) -> 0.0);
+        assertEquals("breadthFirstSearch", stats.getSearch());
+        assertEquals(2, jsonLines.toString().split("\n").length);
+    }
 }
@@ -0,0 +1,760 @@
+package maze_escape;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MazeTest {
+
+    private static final long SEED = 20221203L;
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 40;
+    private static final int REMOVE = 100;
+
+    Maze maze;
+
+    @BeforeEach
+    void setUp() {
+        Maze.reSeedRandomizer(SEED);
+        maze = new Maze(WIDTH, HEIGHT);
+        maze.generateRandomizedPrim();
+        maze.configureInnerEntry();
+        maze.removeRandomWalls(REMOVE);
+    }
+
+    @Test
+    void aStarShouldMatchDijkstraWithLessEffort() {
+        AbstractGraph<Integer>.GPath dijkstra =
+                maze.dijkstraShortestPath(maze.getStartNode(), maze.getExitNode(), maze::manhattanTime);
+        AbstractGraph<Integer>.GPath aStar =
+                maze.aStarShortestPath(maze.getStartNode(), maze.getExitNode(), maze::manhattanTime);
+        assertNotNull(dijkstra);
+        assertNotNull(aStar);
+        assertEquals(dijkstra.getTotalWeight(), aStar.getTotalWeight(), 0.0001);
+        assertEquals(maze.getStartNode(), aStar.getVertices().peek());
+        assertTrue(aStar.getVisited().size() <= dijkstra.getVisited().size());
+    }
+
+    @Test
+    void junctionGraphShouldCompileAllNeighbours() {
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        assertSame(junctionGraph, maze.getJunctionGraph());
+        assertTrue(junctionGraph.indexOf(maze.getStartNode()) >= 0);
+        assertTrue(junctionGraph.indexOf(maze.getExitNode()) >= 0);
+        for (int i = 0; i < junctionGraph.getNumVertices(); i++) {
+            int cell = junctionGraph.cellOf(i);
+            assertEquals(maze.getNeighbours(cell), junctionGraph.getNeighbours(cell));
+        }
+
+        maze.setWall(0, 0, Maze.Direction.EAST, true);
+        assertNotSame(junctionGraph, maze.getJunctionGraph());
+    }
+
+    @Test
+    void junctionGraphSearchesShouldMatchMazeSearches() {
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        int start = maze.getStartNode();
+        int exit = maze.getExitNode();
+
+        assertEquals(maze.breadthFirstSearch(start, exit).getVertices().size(),
+                junctionGraph.breadthFirstSearch(start, exit).getVertices().size());
+        double shortest = maze.dijkstraShortestPath(start, exit, maze::manhattanTime).getTotalWeight();
+        assertEquals(shortest, junctionGraph.dijkstraShortestPath(start, exit).getTotalWeight(), 0.0001);
+        AbstractGraph<Integer>.GPath aStar = junctionGraph.aStarShortestPath(start, exit);
+        assertEquals(shortest, aStar.getTotalWeight(), 0.0001);
+        assertEquals(start, aStar.getVertices().peek());
+        assertTrue(aStar.getVisited().contains(exit));
+
+        // the pre-calculated weights of the compiled graph serve the generic searches as well
+        AbstractGraph<Integer>.GPath compiled = junctionGraph.aStarShortestPath(start, exit,
+                junctionGraph::weightOf, maze::manhattanDistance);
+        assertEquals(shortest, compiled.getTotalWeight(), 0.0001);
+        compiled.reCalculateTotalWeight(junctionGraph::weightOf);
+        assertEquals(shortest, compiled.getTotalWeight(), 0.0001);
+        assertThrows(IllegalArgumentException.class, () -> junctionGraph.weightOf(start, start));
+    }
+
+    @Test
+    void wallsShouldBeSharedByNeighbouringCells() {
+        Maze empty = new Maze(70, 3);
+        assertFalse(empty.getWall(65, 1, Maze.Direction.EAST));
+        empty.setWall(65, 1, Maze.Direction.EAST, true);
+        assertTrue(empty.getWall(65, 1, Maze.Direction.EAST));
+        assertTrue(empty.getWall(66, 1, Maze.Direction.WEST));
+        assertFalse(empty.getWall(64, 1, Maze.Direction.EAST));
+
+        empty.setWalls(63, 2, true);
+        assertTrue(empty.getWall(63, 1, Maze.Direction.SOUTH));
+        assertTrue(empty.getWall(64, 2, Maze.Direction.WEST));
+        assertTrue(empty.getWall(62, 2, Maze.Direction.EAST));
+        empty.setWall(63, 2, Maze.Direction.SOUTH, false);
+        assertFalse(empty.getWall(63, 2, Maze.Direction.SOUTH));
+        assertTrue(empty.getWall(63, 2, Maze.Direction.NORTH));
+    }
+
+    @Test
+    void bitSetReachabilityShouldFindTheSameVertices() {
+        Set<Integer> vertices = maze.getAllVertices(maze.getStartNode());
+        maze.setBitSetReachability(true);
+        Set<Integer> cells = maze.getAllVertices(maze.getStartNode());
+        assertTrue(cells instanceof IntBitSet);
+        assertEquals(vertices, cells);
+    }
+
+    @Test
+    void parallelBreadthFirstSearchShouldFindAShortestPath() {
+        int start = maze.getStartNode();
+        int exit = maze.getExitNode();
+        AbstractGraph<Integer>.GPath path = maze.parallelBreadthFirstSearch(start, exit);
+        assertNotNull(path);
+        assertEquals(start, path.getVertices().peek());
+        assertEquals(maze.breadthFirstSearch(start, exit).getVertices().size(), path.getVertices().size());
+        assertTrue(path.getVisited().containsAll(path.getVertices()));
+
+        Integer previous = null;
+        for (Integer vertex : path.getVertices()) {
+            if (previous != null) assertTrue(maze.getNeighbours(previous).contains(vertex));
+            previous = vertex;
+        }
+    }
+
+    @Test
+    void bidirectionalSearchesShouldMatchUnidirectionalSearches() {
+        // passages of the maze can be one-way, so the backward searches shall follow the incoming edges
+        // which the maze traces itself, as long as its junction graph has not been compiled
+        List<Integer> vertices = new ArrayList<>(maze.getAllVertices(maze.getStartNode()));
+        Random random = new Random(SEED);
+        for (int q = 0; q < 500; q++) {
+            int start = vertices.get(random.nextInt(vertices.size()));
+            int target = vertices.get(random.nextInt(vertices.size()));
+
+            AbstractGraph<Integer>.GPath breadthFirst = maze.breadthFirstSearch(start, target);
+            AbstractGraph<Integer>.GPath bidirectional = maze.bidirectionalBreadthFirstSearch(start, target);
+            if (breadthFirst == null) {
+                assertNull(bidirectional);
+                assertNull(maze.bidirectionalDijkstraShortestPath(start, target, maze::manhattanTime));
+                continue;
+            }
+            assertEquals(breadthFirst.getVertices().size(), bidirectional.getVertices().size());
+            assertPathAlongEdges(maze, start, target, bidirectional);
+
+            AbstractGraph<Integer>.GPath dijkstra = maze.dijkstraShortestPath(start, target, maze::manhattanTime);
+            bidirectional = maze.bidirectionalDijkstraShortestPath(start, target, maze::manhattanTime);
+            assertEquals(dijkstra.getTotalWeight(), bidirectional.getTotalWeight(), 0.0001);
+            assertPathAlongEdges(maze, start, target, bidirectional);
+            double totalWeight = bidirectional.getTotalWeight();
+            bidirectional.reCalculateTotalWeight(maze::manhattanTime);
+            assertEquals(totalWeight, bidirectional.getTotalWeight(), 0.0001);
+        }
+
+        // the traced predecessors are edges, and include all incoming edges of the junction graph
+        JunctionGraph junctionGraph = maze.compileJunctionGraph(maze::manhattanTime);
+        for (int vertex : vertices) {
+            Set<Integer> predecessors = maze.getPredecessors(vertex);
+            for (int predecessor : predecessors) assertTrue(maze.getNeighbours(predecessor).contains(vertex));
+            assertTrue(predecessors.containsAll(junctionGraph.getPredecessors(vertex)));
+        }
+
+        for (int q = 0; q < 500; q++) {
+            int start = vertices.get(random.nextInt(vertices.size()));
+            int target = vertices.get(random.nextInt(vertices.size()));
+            IntPath dijkstra = junctionGraph.intDijkstraShortestPath(start, target);
+            AbstractGraph<Integer>.GPath bidirectional =
+                    junctionGraph.bidirectionalDijkstraShortestPath(start, target, junctionGraph::weightOf);
+            if (dijkstra == null) {
+                assertNull(bidirectional);
+                continue;
+            }
+            assertEquals(dijkstra.getTotalWeight(), bidirectional.getTotalWeight(), 0.0001);
+            assertPathAlongEdges(junctionGraph, start, target, bidirectional);
+        }
+    }
+
+    @Test
+    void exitDistanceFieldShouldProvideAllEscapes(@TempDir Path tempDir) throws IOException {
+        ExitDistanceField field = maze.computeExitDistanceField();
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        int exit = maze.getExitNode();
+        assertEquals(exit, field.getTargetCell());
+        assertArrayEquals(new int[]{exit}, field.pathFrom(exit));
+
+        // passages of the maze can be one-way, so every escape shall follow the edges towards the exit
+        for (int i = 0; i < junctionGraph.getNumVertices(); i++) {
+            int cell = junctionGraph.cellOf(i);
+            IntPath escape = junctionGraph.intDijkstraShortestPath(cell, exit);
+            if (escape == null) {
+                assertFalse(field.isReachable(cell));
+                continue;
+            }
+            assertEquals(escape.getTotalWeight(), field.distanceFrom(cell), 0.0001);
+            int[] path = field.pathFrom(cell);
+            assertEquals(cell, path[0]);
+            assertEquals(exit, path[path.length - 1]);
+            double weight = 0.0;
+            for (int hop = 1; hop < path.length; hop++) {
+                assertTrue(junctionGraph.getNeighbours(path[hop - 1]).contains(path[hop]));
+                weight += junctionGraph.weightOf(path[hop - 1], path[hop]);
+            }
+            assertEquals(field.distanceFrom(cell), weight, 0.0001);
+        }
+
+        File file = tempDir.resolve("exit.edf").toFile();
+        field.save(file);
+        ExitDistanceField loaded = ExitDistanceField.load(file);
+        assertEquals(field.getNumVertices(), loaded.getNumVertices());
+        assertArrayEquals(field.pathFrom(maze.getStartNode()), loaded.pathFrom(maze.getStartNode()));
+        assertEquals(field.distanceFrom(maze.getStartNode()), loaded.distanceFrom(maze.getStartNode()));
+    }
+
+    @Test
+    void mazeFileShouldRoundTripTheLayOut(@TempDir Path tempDir) throws IOException {
+        File file = tempDir.resolve("prim.maze").toFile();
+        MazeFile.save(maze, file);
+        Maze loaded = MazeFile.load(file);
+
+        assertEquals(maze.getWidth(), loaded.getWidth());
+        assertEquals(maze.getHeight(), loaded.getHeight());
+        assertEquals(maze.getStartNode(), loaded.getStartNode());
+        assertEquals(maze.getExitNode(), loaded.getExitNode());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                for (Maze.Direction direction : Maze.Direction.values()) {
+                    assertEquals(maze.getWall(x, y, direction), loaded.getWall(x, y, direction));
+                }
+            }
+        }
+        assertEquals(maze.getNeighbours(maze.getStartNode()), loaded.getNeighbours(loaded.getStartNode()));
+        assertThrows(ReadOnlyBufferException.class, () -> loaded.setWall(0, 0, Maze.Direction.EAST, false));
+
+        Maze writable = MazeFile.load(file, true);
+        writable.setWall(0, 0, Maze.Direction.EAST, !maze.getWall(0, 0, Maze.Direction.EAST));
+        assertEquals(maze.getWall(0, 0, Maze.Direction.EAST), MazeFile.load(file).getWall(0, 0, Maze.Direction.EAST));
+    }
+
+    @Test
+    void ellerShouldGenerateAReproduciblePerfectMaze(@TempDir Path tempDir) throws IOException {
+        Maze.reSeedRandomizer(SEED);
+        Maze eller = new Maze(WIDTH, HEIGHT);
+        eller.generateEller();
+        eller.configureTopEntry();
+
+        // a spanning tree of all cells has exactly one passage less than it has cells
+        int numPassages = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (x > 0 && !eller.getWall(x, y, Maze.Direction.WEST)) numPassages++;
+                if (y > 0 && !eller.getWall(x, y, Maze.Direction.NORTH)) numPassages++;
+            }
+        }
+        assertEquals(WIDTH * HEIGHT - 1, numPassages);
+        // and all cells are connected
+        boolean[] reached = new boolean[WIDTH * HEIGHT];
+        Deque<Integer> stack = new ArrayDeque<>(List.of(0));
+        reached[0] = true;
+        int numReached = 1;
+        while (!stack.isEmpty()) {
+            int cell = stack.pop();
+            int x = cell % WIDTH, y = cell / WIDTH;
+            for (int neighbour : new int[] {
+                    !eller.getWall(x, y, Maze.Direction.NORTH) && y > 0 ? cell - WIDTH : -1,
+                    !eller.getWall(x, y, Maze.Direction.SOUTH) && y < HEIGHT - 1 ? cell + WIDTH : -1,
+                    !eller.getWall(x, y, Maze.Direction.WEST) ? cell - 1 : -1,
+                    !eller.getWall(x, y, Maze.Direction.EAST) ? cell + 1 : -1}) {
+                if (neighbour >= 0 && !reached[neighbour]) {
+                    reached[neighbour] = true;
+                    numReached++;
+                    stack.push(neighbour);
+                }
+            }
+        }
+        assertEquals(WIDTH * HEIGHT, numReached);
+
+        // streaming into a file with the same seed reproduces the same lay-out
+        File file = tempDir.resolve("eller.maze").toFile();
+        Maze.reSeedRandomizer(SEED);
+        MazeFile.generateEller(file, WIDTH, HEIGHT);
+        Maze streamed = MazeFile.load(file);
+        assertEquals(eller.getStartNode(), streamed.getStartNode());
+        assertEquals(eller.getExitNode(), streamed.getExitNode());
+        assertEquals(eller.getWalls().getWords(), streamed.getWalls().getWords());
+        assertNotNull(streamed.breadthFirstSearch(streamed.getStartNode(), streamed.getExitNode()));
+    }
+
+    @Test
+    void removeRandomWallsShouldOpenAllCandidatesWithoutEmptyCorners() {
+        Maze.reSeedRandomizer(SEED);
+        Maze open = new Maze(WIDTH, HEIGHT);
+        open.generateRandomized(1.0);
+
+        for (int y = 0; y <= HEIGHT; y++) {
+            for (int x = 0; x <= WIDTH; x++) {
+                int numCornerWalls = 0;
+                if (x < WIDTH && y < HEIGHT) {
+                    numCornerWalls += open.getWall(x, y, Maze.Direction.NORTH) ? 1 : 0;
+                    numCornerWalls += open.getWall(x, y, Maze.Direction.WEST) ? 1 : 0;
+                }
+                if (x > 0 && y > 0) {
+                    numCornerWalls += open.getWall(x - 1, y - 1, Maze.Direction.SOUTH) ? 1 : 0;
+                    numCornerWalls += open.getWall(x - 1, y - 1, Maze.Direction.EAST) ? 1 : 0;
+                }
+                if (x > 0 && y < HEIGHT) numCornerWalls += open.getWall(x - 1, y, Maze.Direction.NORTH) ? 1 : 0;
+                if (x < WIDTH && y > 0) numCornerWalls += open.getWall(x, y - 1, Maze.Direction.WEST) ? 1 : 0;
+                assertTrue(numCornerWalls > 0, String.format("empty corner at %d,%d", x, y));
+            }
+        }
+
+        // all candidate walls have been opened, so no further wall can be removed
+        long[] words = new long[WallBitboard.numWords(WIDTH, HEIGHT)];
+        open.getWalls().getWords().get(0, words);
+        open.removeRandomWalls(1);
+        assertEquals(LongBuffer.wrap(words), open.getWalls().getWords());
+    }
+
+    @Test
+    void rankedBitSetShouldSelectElementsInOrder() {
+        RankedBitSet set = new RankedBitSet(1000);
+        for (int element = 3; element < 1000; element += 7) set.set(element, true);
+        set.set(10, false);
+        set.set(999, true);
+        int rank = 0;
+        for (int element = 3; element < 1000; element += 7) {
+            if (element != 10) assertEquals(element, set.select(rank++));
+        }
+        assertEquals(999, set.select(set.size() - 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.select(set.size()));
+    }
+
+    @Test
+    void rendererShouldDrawTheTracedPathCellByCell(@TempDir Path tempDir) throws IOException {
+        AbstractGraph<Integer>.GPath path = maze.breadthFirstSearch(maze.getStartNode(), maze.getExitNode());
+        MazeRenderer renderer = new MazeRenderer(maze);
+        File pngFile = tempDir.resolve("bfs.png").toFile();
+        renderer.pngDrawMap(pngFile, path);
+        renderer.svgDrawMap(tempDir.resolve("bfs.svg").toFile(), path.getVisited(), path);
+
+        BufferedImage image = ImageIO.read(pngFile);
+        assertEquals(2 * WIDTH + 1, image.getWidth());
+        assertEquals(2 * HEIGHT + 1, image.getHeight());
+        int wallRgb = image.getRGB(0, 0);
+        int pathRgb = 0xFF00FF00;
+
+        // the passages between successive vertices of the path are filled in, cell by cell
+        Integer previous = null;
+        for (Integer vertex : path.getVertices()) {
+            if (previous != null) {
+                int[] passage = maze.tracePassage(previous, vertex);
+                assertNotNull(passage);
+                assertEquals(vertex, passage[passage.length - 1]);
+                int cell = previous;
+                for (int next : passage) {
+                    assertEquals(1, Math.abs(next % WIDTH - cell % WIDTH) + Math.abs(next / WIDTH - cell / WIDTH));
+                    assertEquals(pathRgb, image.getRGB(next % WIDTH + cell % WIDTH + 1, next / WIDTH + cell / WIDTH + 1));
+                    cell = next;
+                }
+            }
+            previous = vertex;
+        }
+        assertEquals(wallRgb, image.getRGB(2 * WIDTH, 2 * HEIGHT));
+    }
+
+    @Test
+    void intPathShouldAdaptToTheSameGPath() {
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        IntPath intPath = junctionGraph.intAStarShortestPath(maze.getStartNode(), maze.getExitNode());
+        AbstractGraph<Integer>.GPath path = junctionGraph.aStarShortestPath(maze.getStartNode(), maze.getExitNode());
+        assertNotNull(intPath);
+        assertEquals(path.getTotalWeight(), intPath.getTotalWeight());
+        assertEquals(path.getVisited().size(), intPath.getVisited().cardinality());
+
+        AbstractGraph<Integer>.GPath adapted = intPath.toGPath(junctionGraph);
+        assertEquals(List.copyOf(path.getVertices()), List.copyOf(adapted.getVertices()));
+        assertEquals(path.getVisited(), adapted.getVisited());
+        assertEquals(path.toString(), intPath.toString());
+
+        IntPath bfs = junctionGraph.intBreadthFirstSearch(maze.getStartNode(), maze.getExitNode());
+        assertEquals(maze.getStartNode(), bfs.getVertices().get(0));
+        assertEquals(maze.getExitNode(), bfs.getVertices().get(bfs.getVertices().size() - 1));
+        assertNull(junctionGraph.intDijkstraShortestPath(maze.getStartNode(), -1));
+    }
+
+    @Test
+    void pathQueryServiceShouldMatchSingleSearches() {
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        Random random = new Random(SEED);
+        List<PathQueryService.Query> queries = new ArrayList<>();
+        for (int q = 0; q < 200; q++) {
+            queries.add(new PathQueryService.Query(
+                    junctionGraph.cellOf(random.nextInt(junctionGraph.getNumVertices())),
+                    junctionGraph.cellOf(random.nextInt(junctionGraph.getNumVertices()))));
+        }
+
+        for (boolean guided : new boolean[] { false, true }) {
+            List<IntPath> paths = new PathQueryService(junctionGraph, guided).shortestPaths(queries)
+                    .collect(Collectors.toList());
+            assertEquals(queries.size(), paths.size());
+            for (int q = 0; q < queries.size(); q++) {
+                PathQueryService.Query query = queries.get(q);
+                IntPath expected = junctionGraph.intDijkstraShortestPath(query.getStartVertex(), query.getTargetVertex());
+                if (expected == null) {
+                    assertNull(paths.get(q));
+                    continue;
+                }
+                assertEquals(expected.getTotalWeight(), paths.get(q).getTotalWeight(), 0.0001, query.toString());
+                assertEquals(query.getStartVertex(), paths.get(q).getVertices().get(0));
+                assertTrue(paths.get(q).getVisited().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void incrementalPlannerShouldRepairThePathAfterWallChanges() {
+        IncrementalPlanner planner = new IncrementalPlanner(maze, maze.getStartNode(), maze.getExitNode());
+        Random random = new Random(SEED);
+        for (int change = 0; change < 100; change++) {
+            IntPath path = planner.shortestPath();
+            assertShortestCellPath(maze, path, maze.getStartNode(), maze.getExitNode());
+
+            if (path != null && change % 2 == 0) {
+                // block the current path
+                int cell = path.getVertices().get(path.getVertices().size() / 2);
+                int next = path.getVertices().get(path.getVertices().size() / 2 + 1);
+                Maze.Direction direction = next == cell + 1 ? Maze.Direction.EAST : next == cell - 1 ?
+                        Maze.Direction.WEST : next > cell ? Maze.Direction.SOUTH : Maze.Direction.NORTH;
+                maze.setWall(cell % WIDTH, cell / WIDTH, direction, true);
+            } else {
+                int x = random.nextInt(WIDTH), y = random.nextInt(HEIGHT);
+                maze.setWall(x, y, Maze.Direction.values()[random.nextInt(4)], random.nextInt(4) == 0);
+            }
+        }
+
+        IntPath beforeDetach = planner.shortestPath();
+        planner.detach();
+        maze.setWalls(maze.getStartNode() % WIDTH, maze.getStartNode() / WIDTH, true);
+        assertEquals(beforeDetach == null, planner.shortestPath() == null);
+    }
+
+    @Test
+    void hierarchicalSearchShouldFindShortestCellPaths() {
+        Random random = new Random(SEED);
+        for (int q = 0; q < 100; q++) {
+            if (q == 50) {
+                // changes of walls rebuild the affected clusters
+                for (int change = 0; change < 200; change++) {
+                    maze.setWall(random.nextInt(WIDTH), random.nextInt(HEIGHT),
+                            Maze.Direction.values()[random.nextInt(4)], random.nextBoolean());
+                }
+            }
+            int start = q == 0 ? maze.getStartNode() : random.nextInt(WIDTH * HEIGHT);
+            int target = q == 0 ? maze.getExitNode() : random.nextInt(WIDTH * HEIGHT);
+            assertShortestCellPath(maze, maze.getClusterHierarchy().shortestPath(start, target), start, target);
+        }
+        assertSame(maze.getClusterHierarchy(), maze.getClusterHierarchy());
+    }
+
+    @Test
+    void deadEndFillingShouldKeepTheEscapeWithFewerVisits() {
+        Maze pruned = maze.fillDeadEnds();
+        assertEquals(cellDistance(maze, maze.getStartNode(), maze.getExitNode()),
+                cellDistance(pruned, pruned.getStartNode(), pruned.getExitNode()));
+
+        AbstractGraph<Integer>.GPath original =
+                maze.dijkstraShortestPath(maze.getStartNode(), maze.getExitNode(), maze::manhattanTime);
+        AbstractGraph<Integer>.GPath filled =
+                pruned.dijkstraShortestPath(pruned.getStartNode(), pruned.getExitNode(), pruned::manhattanTime);
+        assertNotNull(filled);
+        assertTrue(filled.getVisited().size() < original.getVisited().size());
+
+        // no dead ends are left, and the original maze is unchanged
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int cell = x + y * WIDTH;
+                int numWalls = 0;
+                for (Maze.Direction direction : Maze.Direction.values()) {
+                    numWalls += pruned.getWall(x, y, direction) ? 1 : 0;
+                    if (!maze.getWall(x, y, direction)) continue;
+                    assertTrue(pruned.getWall(x, y, direction));
+                }
+                if (cell != maze.getStartNode() && cell != maze.getExitNode()) assertNotEquals(3, numWalls);
+            }
+        }
+        assertNotEquals(maze.getWalls().getWords(), pruned.getWalls().getWords());
+    }
+
+    @Test
+    void bitParallelSearchShouldFindShortestCellPaths() {
+        // a maze that spans multiple words per row, with loops and walled-off areas
+        Maze wide = new Maze(150, 30);
+        wide.generateRandomizedPrim();
+        wide.configureInnerEntry();
+        wide.removeRandomWalls(300);
+        for (int i = 0; i <= 20; i++) {
+            // wall-off a box around the word boundary at x = 64
+            wide.setWalls(55 + i, 5, true);
+            wide.setWalls(55 + i, 25, true);
+            wide.setWalls(55, 5 + i, true);
+            wide.setWalls(75, 5 + i, true);
+        }
+
+        Random random = new Random(SEED);
+        BitParallelBfs bfs = new BitParallelBfs(wide);
+        for (int q = 0; q < 100; q++) {
+            int start = q == 0 ? wide.getStartNode() : random.nextInt(wide.getNumberOfCells());
+            int target = q == 0 ? wide.getExitNode() : random.nextInt(wide.getNumberOfCells());
+            int distance = cellDistance(wide, start, target);
+            assertEquals(distance, bfs.search(start, target), start + "->" + target);
+            assertShortestCellPath(wide, bfs.shortestPath(start, target), start, target);
+        }
+
+        // a flood-fill reaches exactly the cells at a finite distance
+        int start = 70 + 15 * 150;
+        assertTrue(bfs.search(start, -1) > 0);
+        assertTrue(bfs.getNumReached() < 19 * 19);
+        BitSet reached = bfs.getReached();
+        assertEquals(reached.cardinality(), bfs.getNumReached());
+        assertEquals(reached.cardinality(), bfs.floodFill(start));
+        assertEquals(reached, bfs.getReached());
+        for (int cell = 0; cell < wide.getNumberOfCells(); cell += 7) {
+            assertEquals(cellDistance(wide, start, cell) >= 0, bfs.isReached(cell), "cell " + cell);
+            assertEquals(bfs.isReached(cell), reached.get(cell));
+        }
+    }
+
+    @Test
+    void componentLabelsShouldMatchReachability() {
+        // a sparse random maze over multiple tiles, with unreachable sectors
+        Maze sparse = new Maze(90, 3 * ComponentLabels.TILE_ROWS + 10);
+        sparse.generateRandomized(0.4);
+        ComponentLabels components = sparse.getComponentLabels();
+        assertSame(components, sparse.getComponentLabels());
+        assertTrue(components.getNumComponents() > 1);
+
+        BitParallelBfs bfs = new BitParallelBfs(sparse);
+        BitSet labelled = new BitSet();
+        int totalSize = 0;
+        for (int cell = 0; cell < sparse.getNumberOfCells(); cell++) {
+            int component = components.componentOf(cell);
+            if (labelled.get(component)) continue;
+            // components are numbered in order of their first cell
+            assertEquals(labelled.cardinality(), component);
+            labelled.set(component);
+
+            Set<Integer> cells = components.cellsOf(component);
+            assertEquals(components.getComponentSize(component), cells.size());
+            totalSize += cells.size();
+            bfs.floodFill(cell);
+            assertEquals(new IntBitSet(bfs.getReached()), cells);
+        }
+        assertEquals(components.getNumComponents(), labelled.cardinality());
+        assertEquals(sparse.getNumberOfCells(), totalSize);
+        assertTrue(components.getComponentSize(components.getLargestComponent()) > 1);
+
+        assertTrue(maze.isSolvable());
+        maze.setWalls(maze.getExitNode() % WIDTH, maze.getExitNode() / WIDTH, true);
+        assertFalse(maze.isSolvable());
+    }
+
+    @Test
+    void contractionHierarchyShouldMatchDijkstra(@TempDir Path tempDir) throws IOException {
+        JunctionGraph junctionGraph = maze.getJunctionGraph();
+        ContractionHierarchy hierarchy = junctionGraph.buildContractionHierarchy();
+        assertEquals(junctionGraph.getNumVertices(), hierarchy.getNumVertices());
+
+        File file = tempDir.resolve("maze.ch").toFile();
+        hierarchy.save(file);
+        ContractionHierarchy loaded = ContractionHierarchy.load(file);
+        assertEquals(hierarchy.getNumEdges(), loaded.getNumEdges());
+        assertEquals(hierarchy.getNumShortcuts(), loaded.getNumShortcuts());
+
+        Random random = new Random(SEED);
+        for (int q = 0; q < 200; q++) {
+            int start = junctionGraph.cellOf(random.nextInt(junctionGraph.getNumVertices()));
+            int target = q == 0 ? start : junctionGraph.cellOf(random.nextInt(junctionGraph.getNumVertices()));
+            AbstractGraph<Integer>.GPath dijkstra = junctionGraph.dijkstraShortestPath(start, target);
+            IntPath path = (q % 2 == 0 ? hierarchy : loaded).shortestPath(start, target);
+            if (dijkstra == null) {
+                assertNull(path);
+                assertEquals(Double.MAX_VALUE, hierarchy.distance(start, target));
+                continue;
+            }
+            assertEquals(dijkstra.getTotalWeight(), hierarchy.distance(start, target), 0.0001);
+            assertEquals(dijkstra.getTotalWeight(), path.getTotalWeight(), 0.0001);
+
+            // the unpacked path runs along original passages with the same total weight
+            assertEquals(start, path.getVertices().get(0));
+            assertEquals(target, path.getVertices().get(path.getVertices().size() - 1));
+            double weight = 0.0;
+            for (int i = 1; i < path.getVertices().size(); i++) {
+                int from = path.getVertices().get(i - 1), to = path.getVertices().get(i);
+                assertTrue(junctionGraph.getNeighbours(from).contains(to));
+                weight += maze.manhattanTime(from, to);
+            }
+            assertEquals(dijkstra.getTotalWeight(), weight, 0.0001);
+        }
+        assertNull(hierarchy.shortestPath(-1, maze.getExitNode()));
+    }
+
+    @Test
+    void jumpPointSearchShouldFindShortestCellPaths() {
+        Random random = new Random(SEED);
+        for (double passageFactor : new double[]{0.3, 0.6, 0.9}) {
+            // open mazes with wide corridors and many symmetric shortest paths
+            Maze open = new Maze(70, 40);
+            open.generateRandomized(passageFactor);
+            open.configureInnerEntry();
+            JumpPointSearch jps = new JumpPointSearch(open);
+            for (int q = 0; q < 100; q++) {
+                int start = q == 0 ? open.getStartNode() : random.nextInt(open.getNumberOfCells());
+                int target = q == 0 ? open.getExitNode() : random.nextInt(open.getNumberOfCells());
+                if (q == 1) target = start;
+                assertShortestCellPath(open, jps.shortestPath(start, target), start, target);
+            }
+
+            // the escape agrees with a cell by cell breadth-first search, while expanding fewer cells
+            Maze.GPath escape = open.jumpPointSearch(open.getStartNode(), open.getExitNode());
+            Maze.GPath reference = open.bitParallelBreadthFirstSearch(open.getStartNode(), open.getExitNode());
+            if (reference == null) {
+                assertNull(escape);
+                continue;
+            }
+            assertEquals(reference.getTotalWeight(), escape.getTotalWeight());
+            assertEquals(reference.getVertices().size(), escape.getVertices().size());
+            assertTrue(escape.getVisited().size() < reference.getVisited().size());
+        }
+    }
+
+    @Test
+    void cachingGraphShouldServeRevisitsFromTheCache() {
+        // counts the neighbourhoods that are calculated by the maze itself
+        int[] numCalculated = {0};
+        AbstractGraph<Integer> counted = new AbstractGraph<>() {
+            @Override
+            public Set<Integer> getNeighbours(Integer fromVertex) {
+                numCalculated[0]++;
+                return maze.getNeighbours(fromVertex);
+            }
+        };
+        int start = maze.getStartNode(), exit = maze.getExitNode();
+        double shortest = maze.dijkstraShortestPath(start, exit, maze::manhattanTime).getTotalWeight();
+
+        for (CachingGraph.EvictionPolicy policy : CachingGraph.EvictionPolicy.values()) {
+            // a cache that can hold all vertices, calculates every neighbourhood only once
+            CachingGraph<Integer> cached = new CachingGraph<>(counted, maze.getNumberOfCells(), policy);
+            numCalculated[0] = 0;
+            AbstractGraph<Integer>.GPath escape = cached.dijkstraShortestPath(start, exit, maze::manhattanTime);
+            AbstractGraph<Integer>.GPath back = cached.dijkstraShortestPath(exit, start, maze::manhattanTime);
+            assertEquals(shortest, escape.getTotalWeight(), 0.0001);
+            assertEquals(shortest, back.getTotalWeight(), 0.0001);
+            assertEquals(cached.size(), numCalculated[0], policy.name());
+            assertEquals(numCalculated[0], cached.getMisses());
+            assertTrue(cached.getHits() > 0);
+            assertEquals(0, cached.getEvictions());
+
+            // a small cache stays within its capacity, and still finds the same paths
+            CachingGraph<Integer> small = new CachingGraph<>(counted, 10, policy);
+            assertEquals(shortest, small.dijkstraShortestPath(start, exit, maze::manhattanTime).getTotalWeight(), 0.0001);
+            assertEquals(10, small.size());
+            assertEquals(small.getMisses() - 10, small.getEvictions());
+            small.getNeighbours(start);
+            small.invalidate(start);
+            assertEquals(9, small.size());
+            small.invalidateAll();
+            assertEquals(0, small.size());
+        }
+
+        // wall changes of a registered maze invalidate the cached neighbours
+        CachingGraph<Integer> cached = new CachingGraph<>(maze, 100, CachingGraph.EvictionPolicy.CLOCK);
+        Maze.WallChangeListener flush = Maze.WallChangeListener.onAnyChange(cached::invalidateAll);
+        maze.addWallChangeListener(flush);
+        Set<Integer> neighbours = cached.getNeighbours(start);
+        assertSame(neighbours, cached.getNeighbours(start));
+        maze.setWalls(maze.getWidth() / 2, maze.getHeight() / 2, true);
+        assertEquals(0, cached.size());
+        assertEquals(maze.getNeighbours(start), cached.getNeighbours(start));
+        maze.removeWallChangeListener(flush);
+    }
+
+    /**
+     * asserts that the path runs from start to target and that every pair of consecutive vertices is an edge of the graph
+     */
+    private static void assertPathAlongEdges(AbstractGraph<Integer> graph, int start, int target,
+                                             AbstractGraph<Integer>.GPath path) {
+        assertEquals(start, path.getVertices().peek());
+        Integer previous = null;
+        for (Integer vertex : path.getVertices()) {
+            if (previous != null) assertTrue(graph.getNeighbours(previous).contains(vertex));
+            previous = vertex;
+        }
+        assertEquals(target, previous);
+    }
+
+    /**
+     * asserts that the path is a shortest path from start to target that steps between adjacent cells without
+     * passing a wall, or that the path is null if the target cannot be reached
+     */
+    private static void assertShortestCellPath(Maze maze, IntPath path, int start, int target) {
+        String query = start + "->" + target;
+        int distance = cellDistance(maze, start, target);
+        if (distance < 0) {
+            assertNull(path, query);
+            return;
+        }
+        assertNotNull(path, query);
+        assertEquals(distance, path.getTotalWeight(), query);
+        assertEquals(distance + 1, path.getVertices().size(), query);
+        assertEquals(start, path.getVertices().get(0));
+        assertEquals(target, path.getVertices().get(distance));
+        int width = maze.getWidth();
+        for (int i = 1; i <= distance; i++) {
+            int cell = path.getVertices().get(i - 1), next = path.getVertices().get(i);
+            int deltaX = next % width - cell % width, deltaY = next / width - cell / width;
+            assertEquals(1, Math.abs(deltaX) + Math.abs(deltaY), query);
+            Maze.Direction direction = deltaX > 0 ? Maze.Direction.EAST : deltaX < 0 ? Maze.Direction.WEST :
+                    deltaY > 0 ? Maze.Direction.SOUTH : Maze.Direction.NORTH;
+            assertFalse(maze.getWall(cell % width, cell / width, direction), query);
+        }
+    }
+
+    /**
+     * @return the number of steps between two cells of the maze along a shortest path, or -1 if not reachable
+     */
+    private static int cellDistance(Maze maze, int fromCell, int toCell) {
+        int width = maze.getWidth(), height = maze.getHeight();
+        int[] distances = new int[width * height];
+        Arrays.fill(distances, -1);
+        Deque<Integer> queue = new ArrayDeque<>(List.of(fromCell));
+        distances[fromCell] = 0;
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = cell % width, y = cell / width;
+            for (Maze.Direction direction : Maze.Direction.values()) {
+                int neighbourX = x + (direction == Maze.Direction.EAST ? 1 : direction == Maze.Direction.WEST ? -1 : 0);
+                int neighbourY = y + (direction == Maze.Direction.SOUTH ? 1 : direction == Maze.Direction.NORTH ? -1 : 0);
+                if (neighbourX < 0 || neighbourX >= width || neighbourY < 0 || neighbourY >= height) continue;
+                int neighbour = neighbourX + neighbourY * width;
+                if (maze.getWall(x, y, direction) || distances[neighbour] >= 0) continue;
+                distances[neighbour] = distances[cell] + 1;
+                queue.add(neighbour);
+            }
+        }
+        return distances[toCell];
+    }
+}